@@ -0,0 +1,216 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Non-interactive version of the game: reads a file of queries, one per line,
+ * pipe-delimited like the data files:
+ *
+ *   p|center|name		shortest path from name to center (same as the UI's p)
+ *   a|center			average separation from center (same as the UI's a)
+ *   n|center			number of actors with a path to center (same as the UI's n)
+ *
+ * Queries are grouped by center so each shortest path tree is built exactly once,
+ * the centers are spread over a thread pool, and results are written in input
+ * order as TSV or JSON lines, each with the line of the query file it answers.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class BaconBatch {
+	private Graph<String, Set<String>> graph;
+	private int threads;
+
+	/**
+	 * Constructor for the batch runner
+	 *
+	 * @param graph		graph to query, only read from
+	 * @param threads	number of worker threads
+	 */
+	public BaconBatch(Graph<String, Set<String>> graph, int threads) {
+		this.graph = graph;
+		this.threads = threads;
+	}
+
+	/**
+	 * Runs every query in the input file and writes one result line per query
+	 *
+	 * @param queryFile		file of queries
+	 * @param outFile		file to write results to
+	 * @param json			JSON lines if true, TSV otherwise
+	 * @return				number of queries answered
+	 * @throws Exception
+	 */
+	public int run(String queryFile, String outFile, boolean json) throws Exception {
+		List<Integer> lines = new ArrayList<Integer>();
+		List<String[]> queries = readQueries(queryFile, lines);
+
+		// group query indices by center so that each center is traversed once
+		Map<String, List<Integer>> byCenter = new HashMap<String, List<Integer>>();
+		for(int i = 0; i < queries.size(); i++) {
+			byCenter.computeIfAbsent(queries.get(i)[1], c -> new ArrayList<Integer>()).add(i);
+		}
+
+		String[] results = new String[queries.size()];
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> tasks = new ArrayList<Future<?>>();
+			for(Map.Entry<String, List<Integer>> group : byCenter.entrySet()) {
+				tasks.add(pool.submit(() -> answer(group.getKey(), group.getValue(), queries, lines, results, json)));
+			}
+			for(Future<?> task : tasks) task.get();
+		} finally {
+			pool.shutdown();
+		}
+
+		PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(outFile)));
+		if(!json) out.println("line\ttype\tcenter\tname\tresult\tpath");
+		for(String result : results) out.println(result);
+		out.close();
+		return queries.size();
+	}
+
+	/**
+	 * Reads the query file into {type, center, name} triples (name is null for a/n)
+	 *
+	 * @param file		query file
+	 * @param lines		out: the file line number of each query (blank lines are skipped)
+	 */
+	private List<String[]> readQueries(String file, List<Integer> lines) throws Exception {
+		List<String[]> queries = new ArrayList<String[]>();
+		BufferedReader in;
+		String line = "";
+		try {
+			in = new BufferedReader(new FileReader(file));
+		}catch (Exception e) {
+			throw new Exception("File Not Found");
+		}
+
+		int lineNum = 0;
+		while((line = in.readLine()) != null) {
+			lineNum++;
+			if(line.isEmpty()) continue;
+			String[] parts = line.split("\\|");
+			String type = parts[0];
+			if(!(type.equals("p") || type.equals("a") || type.equals("n")) || parts.length != (type.equals("p") ? 3 : 2)) {
+				in.close();
+				throw new Exception("Bad query on line " + lineNum + ": " + line);
+			}
+			queries.add(new String[] {type, parts[1], type.equals("p") ? parts[2] : null});
+			lines.add(lineNum);
+		}
+		in.close();
+		return queries;
+	}
+
+	/**
+	 * Answers every query for one center from a single shortest path tree
+	 */
+	private void answer(String center, List<Integer> indices, List<String[]> queries, List<Integer> lines, String[] results, boolean json) {
+		Graph<String, Set<String>> paths = graph.hasVertex(center) ? BaconGraphLib.bfs(graph, center) : null;
+		double average = -1;
+
+		for(int i : indices) {
+			String[] q = queries.get(i);
+			String type = q[0], name = q[2];
+			String result;
+			boolean numeric = false;		// whether result is a number, rather than a message
+			List<String> path = null;
+
+			if(paths == null) {
+				result = "unknown actor " + center;
+			}
+			else if(type.equals("n")) {
+				result = Integer.toString(paths.numVertices() - 1);
+				numeric = true;
+			}
+			else if(type.equals("a")) {
+				if(average < 0) average = BaconGraphLib.averageSeparation(paths, center);
+				result = Double.toString(average);
+				numeric = !Double.isNaN(average) && !Double.isInfinite(average);
+			}
+			else if(!graph.hasVertex(name)) {
+				result = "unknown actor " + name;
+			}
+			else if(!paths.hasVertex(name)) {
+				result = "not connected";
+			}
+			else {
+				path = BaconGraphLib.getPath(paths, name);
+				result = Integer.toString(path.size() - 1);
+				numeric = true;
+			}
+			results[i] = json ? toJson(lines.get(i), q, result, numeric, path, paths) : toTsv(lines.get(i), q, result, path, paths);
+		}
+	}
+
+	/**
+	 * TSV result line; the path column holds the hops of an answered p query,
+	 * e.g. "Bob [A movie] Kevin Bacon; ...", and is empty otherwise
+	 */
+	private static String toTsv(int line, String[] q, String result, List<String> path, Graph<String, Set<String>> paths) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(line).append('\t').append(q[0]).append('\t').append(q[1]).append('\t')
+		  .append(q[2] == null ? "" : q[2]).append('\t').append(result).append('\t');
+		if(path != null) {
+			for(int i = 0; i < path.size()-1; i++) {
+				if(i > 0) sb.append("; ");
+				sb.append(path.get(i)).append(' ').append(paths.getLabel(path.get(i), path.get(i+1))).append(' ').append(path.get(i+1));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * JSON result line, with numeric results as numbers and the path as a list of
+	 * {actor, movies, costar} hops
+	 */
+	private static String toJson(int line, String[] q, String result, boolean numeric, List<String> path, Graph<String, Set<String>> paths) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"line\":").append(line)
+		  .append(",\"type\":").append(quote(q[0]))
+		  .append(",\"center\":").append(quote(q[1]));
+		if(q[2] != null) sb.append(",\"name\":").append(quote(q[2]));
+		sb.append(",\"result\":").append(numeric ? result : quote(result));
+		if(path != null) sb.append(",\"path\":").append(pathJson(path, paths));
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * JSON list of {actor, movies, costar} hops along a path from getPath
+	 *
+	 * @param path		path from BaconGraphLib.getPath
+	 * @param paths		shortest path tree the path came from
+	 * @return			JSON array
+	 */
+	static String pathJson(List<String> path, Graph<String, Set<String>> paths) {
+		StringBuilder sb = new StringBuilder("[");
+		for(int i = 0; i < path.size()-1; i++) {
+			if(i > 0) sb.append(',');
+			sb.append("{\"actor\":").append(quote(path.get(i))).append(",\"movies\":[");
+			int m = 0;
+			for(String movie : paths.getLabel(path.get(i), path.get(i+1))) {
+				if(m++ > 0) sb.append(',');
+				sb.append(quote(movie));
+			}
+			sb.append("],\"costar\":").append(quote(path.get(i+1))).append('}');
+		}
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Quotes and escapes a string for JSON
+	 */
+	static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(c == '"' || c == '\\') sb.append('\\').append(c);
+			else if(c < 0x20) sb.append(String.format("\\u%04x", (int)c));
+			else sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+}
@@ -4,21 +4,68 @@ import java.util.Set;
 
 /**
  * Driver class and the final class of the game that actually runs game
+ *
+ * With no arguments it runs the interactive game. Other modes:
+ *   batch <queries> <results> [tsv|json]	answers a file of queries (see BaconBatch)
+ *   serve [port]							serves queries over HTTP on localhost (see BaconServer)
+ *   index <file>							builds a PrunedLandmarkLabeling and saves it to file
+ *
+ * Data files default to the small test files and can be switched with
+ * -Dbacon.actors=actors.txt -Dbacon.movies=movies.txt -Dbacon.movieActors=movie-actors.txt
+ * and serve answers /distance from an index saved by index <file> when given
+ * -Dbacon.index=<file> (which must have been built from the same data files).
+ *
  * @author Sudharsan Balasubramani and Dhruv Uppal
  *
  */
 public class BaconDriver {
 
 	public static void main(String[] args) throws Exception {
-		BaconReader reader = new BaconReader();
-		Map<String, String> actorMap = reader.read("actorsTest.txt");
-		Map<String, String> movieMap = reader.read("moviesTest.txt");
-		Map<String, ArrayList<String>> movieActorMap = reader.idRead("movie-actorsTest.txt");
-		Graph<String, Set<String>> graph = reader.buildGraph(actorMap, movieMap, movieActorMap);
-		
-		BaconUI game = new BaconUI(graph, "Kevin Bacon");
-		game.runUI();
+		BaconStats.register();
+		Graph<String, Set<String>> graph = loadGraph();
 
+		if(args.length == 0) {
+			BaconUI game = new BaconUI(graph, "Kevin Bacon");
+			game.runUI();
+		}
+		else if(args[0].equals("batch") && args.length >= 3) {
+			BaconBatch batch = new BaconBatch(graph, Runtime.getRuntime().availableProcessors());
+			long start = System.nanoTime();
+			int n = batch.run(args[1], args[2], args.length > 3 && args[3].equals("json"));
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.println(n + " queries in " + String.format("%.2f", seconds) + "s (" + String.format("%.0f", n / seconds) + " queries/sec)");
+		}
+		else if(args[0].equals("serve")) {
+			String indexFile = System.getProperty("bacon.index");
+			PrunedLandmarkLabeling index = indexFile == null ? null : PrunedLandmarkLabeling.load(indexFile, graph);
+			BaconServer server = new BaconServer(graph, 1024, index);
+			int port = server.start(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+			System.out.println("Serving on http://localhost:" + port + " (/path, /separation, /components, /degree, /distance)");
+		}
+		else if(args[0].equals("index") && args.length >= 2) {
+			long start = System.nanoTime();
+			PrunedLandmarkLabeling pll = new PrunedLandmarkLabeling(new IndexedGraph<String>(graph, VertexOrder.BFS));
+			pll.save(args[1]);
+			System.out.println("Indexed " + pll.numVertices() + " actors (" + pll.numEntries() + " label entries) in "
+					+ String.format("%.2f", (System.nanoTime() - start) / 1e9) + "s, saved to " + args[1]);
+		}
+		else {
+			System.out.println("Usage: BaconDriver [batch <queries> <results> [tsv|json] | serve [port] | index <file>]");
+		}
+	}
+
+	/**
+	 * Reads the data files named by the bacon.* system properties and builds the graph
+	 *
+	 * @return		graph of actors, with edges labeled by the movies they share
+	 * @throws Exception
+	 */
+	public static Graph<String, Set<String>> loadGraph() throws Exception {
+		BaconReader reader = new BaconReader();
+		Map<String, String> actorMap = reader.read(System.getProperty("bacon.actors", "actorsTest.txt"));
+		Map<String, String> movieMap = reader.read(System.getProperty("bacon.movies", "moviesTest.txt"));
+		Map<String, ArrayList<String>> movieActorMap = reader.idRead(System.getProperty("bacon.movieActors", "movie-actorsTest.txt"));
+		return reader.buildGraph(actorMap, movieMap, movieActorMap);
 	}
 
 }
@@ -0,0 +1,223 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Writes synthetic actor, movie and cast files in the same id|name and movie|actor
+ * format as the bundled data, at any scale, for testing how the reader, graph and
+ * searches hold up beyond ~20k cast rows. Output depends only on the seed.
+ *
+ * Movies are made in release order. Each gets a cast size drawn from a power law
+ * and picks that many distinct actors from a pool of actors whose careers are
+ * under way. Every actor gets a career length (the number of movies they'll be
+ * in), also from a power law, and leaves the pool once it is used up, a newcomer
+ * taking their place. Actors are picked with weight sqrt(career), so long careers
+ * are both busier and span more generations of movies; they become the hubs that
+ * keep separations short, as in the real data. A few cast slots are cameos by any
+ * earlier actor. Only the pool is kept in memory, so the size is limited by disk,
+ * not heap.
+ *
+ * The first actor is Kevin Bacon, given the longest career, so the game's
+ * default center is in the data.
+ *
+ * Usage: BaconGenerator <cast rows> <output directory> [seed]
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class BaconGenerator {
+	public static final String ACTORS = "actors.txt", MOVIES = "movies.txt", CASTS = "movie-actors.txt";
+
+	private static final double CAST_EXPONENT = 2.7;		// P(cast size = k) ~ k^-2.7, mean about 2
+	private static final int MAX_CAST = 200;
+	private static final double CAREER_EXPONENT = 2.2;		// P(career = k) ~ k^-2.2, mean about 4
+	private static final int MAX_CAREER = 500;
+	private static final double CAMEO = 0.03;				// chance a cast slot goes to any earlier actor
+
+	private static final String[] FIRST = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda",
+			"William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah",
+			"Charles", "Karen", "Daniel", "Nancy", "Matthew", "Lisa", "Anthony", "Betty", "Mark", "Margaret", "Donald",
+			"Sandra", "Steven", "Ashley", "Paul", "Kimberly", "Andrew", "Emily", "Joshua", "Donna", "Kenneth", "Michelle",
+			"Kevin", "Carol", "Brian", "Amanda", "George", "Dorothy", "Edward", "Melissa", "Ronald", "Deborah", "Timothy",
+			"Stephanie", "Jason", "Rebecca", "Jeffrey", "Sharon", "Ryan", "Laura", "Jacob", "Cynthia", "Gary", "Kathleen",
+			"Nicholas", "Amy"};
+	private static final String[] LAST = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis",
+			"Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore",
+			"Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis",
+			"Robinson", "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores",
+			"Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts", "Gomez",
+			"Phillips", "Evans", "Turner", "Diaz", "Parker", "Cruz", "Edwards", "Collins", "Reyes", "Stewart", "Morris",
+			"Morales", "Murphy"};
+
+	private final Random random;
+	private final int poolSize;
+	private int[] pool;			// ids of actors whose careers are under way
+	private int[] remaining;	// movies left in the career of pool[i]
+	private long[] weights;		// Fenwick tree of the pool's pick weights
+	private long totalWeight = 0;
+	private int actors = 0;		// actors so far; ids are 1..actors
+
+	/**
+	 * Constructor
+	 *
+	 * @param rows		cast rows the output is sized for (sets the pool size)
+	 * @param seed		random seed
+	 */
+	public BaconGenerator(long rows, long seed) {
+		random = new Random(seed);
+		// grows with the square root of the size so separations grow slowly, as in real data
+		poolSize = (int)Math.max(1000, Math.min(1 << 20, 10 * Math.sqrt(rows)));
+		pool = new int[poolSize];
+		remaining = new int[poolSize];
+		weights = new long[poolSize + 1];
+	}
+
+	/**
+	 * Writes actors.txt, movies.txt and movie-actors.txt to a directory
+	 *
+	 * @param rows		number of cast rows to write
+	 * @param dir		output directory, created if needed
+	 * @throws IOException
+	 */
+	public void write(long rows, File dir) throws IOException {
+		dir.mkdirs();
+		BufferedWriter actorOut = new BufferedWriter(new FileWriter(new File(dir, ACTORS)), 1 << 16);
+		BufferedWriter movieOut = new BufferedWriter(new FileWriter(new File(dir, MOVIES)), 1 << 16);
+		BufferedWriter castOut = new BufferedWriter(new FileWriter(new File(dir, CASTS)), 1 << 16);
+		try {
+			for(int i = 0; i < poolSize; i++) debut(i, actorOut);
+			long written = 0;
+			double expectedMovies = rows / mean(CAST_EXPONENT, MAX_CAST);
+			int[] cast = new int[MAX_CAST];					// pool slots in the current movie
+			boolean[] chosen = new boolean[poolSize];
+			for(int movie = 1; written < rows; movie++) {
+				int year = 1900 + (int)Math.min(124, 125.0 * (movie - 1) / expectedMovies);
+				movieOut.write(movie + "|" + movieTitle(movie) + " (" + year + ")\n");
+
+				int size = (int)Math.min(powerLaw(CAST_EXPONENT, MAX_CAST), rows - written);
+				for(int j = 0; j < size; j++) {
+					int slot;
+					do slot = pick(); while(chosen[slot]);
+					chosen[slot] = true;
+					cast[j] = slot;
+				}
+				Set<Integer> cameos = new HashSet<Integer>();
+				for(int j = 0; j < size; j++) {
+					int actor = pool[cast[j]];
+					if(random.nextDouble() < CAMEO) {
+						int cameo = 1 + random.nextInt(actors);
+						if(!isInCast(cameo, cast, size) && cameos.add(cameo)) actor = cameo;
+					}
+					if(actor == pool[cast[j]]) remaining[cast[j]]--;
+					castOut.write(movie + "|" + actor + "\n");
+				}
+				for(int j = 0; j < size; j++) {
+					chosen[cast[j]] = false;
+					if(remaining[cast[j]] == 0) debut(cast[j], actorOut);
+				}
+				written += size;
+			}
+		} finally {
+			actorOut.close();
+			movieOut.close();
+			castOut.close();
+		}
+	}
+
+	/**
+	 * Puts a new actor in pool slot i and writes them to the actors file
+	 */
+	private void debut(int i, Writer actorOut) throws IOException {
+		int id = ++actors;
+		pool[i] = id;
+		remaining[i] = id == 1 ? MAX_CAREER : (int)powerLaw(CAREER_EXPONENT, MAX_CAREER);
+		setWeight(i, Math.round(16 * Math.sqrt(remaining[i])));
+		actorOut.write(id + "|" + actorName(id) + "\n");
+	}
+
+	private boolean isInCast(int actor, int[] cast, int size) {
+		for(int j = 0; j < size; j++) if(pool[cast[j]] == actor) return true;
+		return false;
+	}
+
+	/**
+	 * Sets the pick weight of pool slot i
+	 */
+	private void setWeight(int i, long weight) {
+		long delta = weight - weightOf(i);
+		totalWeight += delta;
+		for(int x = i + 1; x <= poolSize; x += x & -x) weights[x] += delta;
+	}
+
+	private long weightOf(int i) {
+		return prefix(i + 1) - prefix(i);
+	}
+
+	private long prefix(int n) {
+		long sum = 0;
+		for(int x = n; x > 0; x -= x & -x) sum += weights[x];
+		return sum;
+	}
+
+	/**
+	 * A pool slot, chosen with probability proportional to its weight
+	 */
+	private int pick() {
+		long target = (long)(random.nextDouble() * totalWeight);
+		int slot = 0;		// descend the tree for the first slot whose prefix sum passes target
+		for(int step = Integer.highestOneBit(poolSize); step > 0; step >>= 1) {
+			if(slot + step <= poolSize && weights[slot + step] <= target) {
+				slot += step;
+				target -= weights[slot];
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Draws an integer in 1..max with P(k) roughly proportional to k^-exponent
+	 */
+	private long powerLaw(double exponent, int max) {
+		double x = Math.pow(1 - random.nextDouble(), -1 / (exponent - 1));
+		return Math.min(max, (long)x);
+	}
+
+	/**
+	 * Mean of powerLaw(exponent, max), summed numerically
+	 */
+	private static double mean(double exponent, int max) {
+		double mean = 0;
+		for(int k = 1; k <= max; k++) {
+			double p = Math.pow(k, 1 - exponent) - (k == max ? 0 : Math.pow(k + 1, 1 - exponent));
+			mean += k * p;
+		}
+		return mean;
+	}
+
+	/**
+	 * A unique, readable name for each actor id
+	 */
+	public static String actorName(int id) {
+		if(id == 1) return "Kevin Bacon";
+		int i = id - 2, names = FIRST.length * LAST.length;
+		String name = FIRST[i % FIRST.length] + " " + LAST[(i / FIRST.length) % LAST.length];
+		return i < names ? name : name + " " + (i / names + 1);
+	}
+
+	private static String movieTitle(int id) {
+		return "The " + LAST[id % LAST.length] + " " + (id % 3 == 0 ? "Affair" : id % 3 == 1 ? "Story" : "Job") + " " + id;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if(args.length < 2) {
+			System.out.println("Usage: BaconGenerator <cast rows> <output directory> [seed]");
+			return;
+		}
+		long rows = Long.parseLong(args[0]);
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+		long start = System.nanoTime();
+		BaconGenerator generator = new BaconGenerator(rows, seed);
+		generator.write(rows, new File(args[1]));
+		System.out.println(String.format("wrote %d cast rows, %d actors to %s in %.1fs", rows, generator.actors, args[1],
+				(System.nanoTime() - start) / 1e9));
+	}
+}
@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -6,6 +7,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.ToIntFunction;
 
 /**
  * This class is a Library of functions that can be used on graphs, similar
@@ -36,9 +38,12 @@ public class BaconGraphLib {
 		queue.add(source); 
 		visited.add(source);
 		paths.insertVertex(source);
+		long vertices = 0, edges = 0;	// counted locally, reported once to BaconStats
 		while (!queue.isEmpty()) { 
 			V u = queue.remove(); 
+			vertices++;
 			for (V v : g.outNeighbors(u)) { 
+				edges++;
 				if (!visited.contains(v)) { 
 					//if unvisited, add to queue, insert into path tree, directed to parent
 					visited.add(v); 
@@ -49,9 +54,43 @@ public class BaconGraphLib {
 				}
 			}
 		}
+		BaconStats.recordBfs(vertices, edges);
 		return paths;
 	}
 	
+	/**
+	 * Breadth-first search over an OffHeapGraph by vertex number, without building a
+	 * path tree or allocating anything, so that searching a graph much larger than the
+	 * heap puts no pressure on the garbage collector. The caller owns the buffers and
+	 * can reuse them across calls.
+	 * 
+	 * @param g			off-heap graph
+	 * @param source	vertex number of the center of the universe
+	 * @param dist		out: hop distance to each vertex, -1 where unreachable (length numVertices)
+	 * @param queue		scratch space (length numVertices)
+	 * @return			number of vertices reached, source included
+	 */
+	public static int bfsDistances(OffHeapGraph g, int source, int[] dist, int[] queue) {
+		Arrays.fill(dist, -1);
+		int head = 0, tail = 0;
+		long edges = 0;
+		dist[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int u = queue[head++];
+			for (long e = g.edgeStart(u), end = g.edgeStart(u + 1); e < end; e++) {
+				edges++;
+				int v = g.target(e);
+				if (dist[v] < 0) {
+					dist[v] = dist[u] + 1;
+					queue[tail++] = v;
+				}
+			}
+		}
+		BaconStats.recordBfs(tail, edges);
+		return tail;
+	}
+	
 	/**
 	 * Given the shortest path tree, this method returns the path between
 	 * a vertex and the source vertex.
@@ -220,6 +259,35 @@ public class BaconGraphLib {
 		return sorted;
 	}
 	
+	/**
+	 * The k vertices with the highest in-degree, or for a negative k the -k with the lowest,
+	 * found with a bounded heap instead of sorting every vertex; ties go to the vertex
+	 * that comes first in natural order
+	 * @param g		graph
+	 * @param k		how many vertices (positive: highest, negative: lowest)
+	 * @return		the selected vertices, highest (or lowest) in-degree at index 0
+	 */
+	public static <V extends Comparable<V>,E> List<V> topByInDegree(Graph<V,E> g, int k) {
+		return topByDegree(g.vertices(), k, v -> g.inDegree(v));
+	}
+	
+	/**
+	 * The k vertices with the highest out-degree, or for a negative k the -k with the lowest,
+	 * as for topByInDegree
+	 * @param g		graph
+	 * @param k		how many vertices (positive: highest, negative: lowest)
+	 * @return		the selected vertices, highest (or lowest) out-degree at index 0
+	 */
+	public static <V extends Comparable<V>,E> List<V> topByOutDegree(Graph<V,E> g, int k) {
+		return topByDegree(g.vertices(), k, v -> g.outDegree(v));
+	}
+	
+	private static <V extends Comparable<V>> List<V> topByDegree(Iterable<V> vertices, int k, ToIntFunction<V> degree) {
+		Comparator<V> byDegree = Comparator.comparingInt(degree);
+		Comparator<V> order = (k > 0 ? byDegree.reversed() : byDegree).thenComparing(Comparator.naturalOrder());
+		return TopK.select(vertices, Math.abs(k), order);
+	}
+	
 	public static void main(String[] args) {
 		Graph<String, String> g = new AdjacencyMapGraph<String, String>();
 		// GraphLib graph = new GraphLib();
@@ -0,0 +1,93 @@
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local load test for BaconServer: starts a server on the loaded graph, then for
+ * each concurrency level runs that many clients in a closed loop for a fixed time
+ * and reports throughput and p50/p99 latency. The query mix is mostly paths
+ * (against a small set of centers, so the bfs cache is exercised), plus
+ * separation, component and degree lookups.
+ *
+ * Usage: BaconLoadTest [seconds per level] [levels, e.g. 1,4,16,64]
+ * (data files are chosen with the same -Dbacon.* properties as BaconDriver)
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class BaconLoadTest {
+
+	public static void main(String[] args) throws Exception {
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		String levels = args.length > 1 ? args[1] : "1,4,16,64";
+
+		Graph<String, Set<String>> graph = BaconDriver.loadGraph();
+		BaconServer server = new BaconServer(graph, 256);
+		int port = server.start(0);
+		String base = "http://localhost:" + port;
+
+		List<String> actors = new ArrayList<String>();
+		for(String v : graph.vertices()) actors.add(v);
+		Collections.sort(actors);	// deterministic order for the seeded choices below
+		List<String> shuffled = new ArrayList<String>(actors);
+		Collections.shuffle(shuffled, new Random(0));
+		List<String> centers = shuffled.subList(0, Math.min(50, shuffled.size()));
+
+		HttpClient client = HttpClient.newHttpClient();
+		System.out.println("clients\trequests\treq/sec\tp50(ms)\tp99(ms)\terrors");
+		for(String level : levels.split(",")) {
+			int clients = Integer.parseInt(level.trim());
+			LatencyHistogram latencies = new LatencyHistogram();
+			AtomicLong errors = new AtomicLong();
+			long end = System.nanoTime() + seconds * 1_000_000_000L;
+
+			List<Thread> threads = new ArrayList<Thread>();
+			for(int c = 0; c < clients; c++) {
+				Random random = new Random(c);
+				Thread t = new Thread(() -> {
+					while(System.nanoTime() < end) {
+						HttpRequest request = HttpRequest.newBuilder(URI.create(base + randomQuery(random, actors, centers))).build();
+						long start = System.nanoTime();
+						try {
+							HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+							if(response.statusCode() != 200) errors.incrementAndGet();
+						} catch (Exception e) {
+							errors.incrementAndGet();
+						}
+						latencies.record(System.nanoTime() - start);
+					}
+				});
+				threads.add(t);
+				t.start();
+			}
+			for(Thread t : threads) t.join();
+
+			System.out.println(clients + "\t" + latencies.count() + "\t" + String.format("%.0f", latencies.count() / (double)seconds)
+					+ "\t" + String.format("%.2f", latencies.percentile(50) / 1e6) + "\t" + String.format("%.2f", latencies.percentile(99) / 1e6)
+					+ "\t" + errors.get());
+		}
+		server.stop();
+	}
+
+	/**
+	 * One request path from the query mix: 85% path, 5% each separation, components, degree
+	 */
+	private static String randomQuery(Random random, List<String> actors, List<String> centers) {
+		int r = random.nextInt(100);
+		String center = centers.get(random.nextInt(centers.size()));
+		if(r < 85) return "/path?from=" + encode(actors.get(random.nextInt(actors.size()))) + "&to=" + encode(center);
+		if(r < 90) return "/separation?center=" + encode(center);
+		if(r < 95) return "/components?actor=" + encode(actors.get(random.nextInt(actors.size())));
+		int low = random.nextInt(20);
+		return "/degree?low=" + low + "&high=" + (low + 10) + "&limit=20";
+	}
+
+	private static String encode(String s) {
+		return URLEncoder.encode(s, StandardCharsets.UTF_8);
+	}
+}
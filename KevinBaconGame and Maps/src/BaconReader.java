@@ -27,11 +27,14 @@ public class BaconReader {
 			throw new Exception("File Not Found");
 		}
 		
+		long lines = 0;
 		while((line = in.readLine()) != null) {
 			String[] idname = line.split("\\|");
 			map.put(idname[0], idname[1]);
+			lines++;
 		}
 		in.close();
+		BaconStats.recordRead(lines, new File(file).length());	// read to EOF, so the whole file was parsed
 		return map;
 	}
 	
@@ -53,6 +56,7 @@ public class BaconReader {
 			throw new Exception("File Not Found");
 		}
 		
+		long lines = 0;
 		while((line = in.readLine()) != null) {
 			String[] idname = line.split("\\|");
 			if(!map.containsKey(idname[0])) {
@@ -63,13 +67,18 @@ public class BaconReader {
 			else {
 				map.get(idname[0]).add(idname[1]);
 			}
+			lines++;
 		}
 		in.close();
+		BaconStats.recordRead(lines, new File(file).length());
 		return map;
 	}
 	
 	/**
-	 * Uses the actors, movies, and movieActor maps to create a graph of all relationships
+	 * Uses the actors, movies, and movieActor maps to create a graph of all relationships.
+	 * Edge labels are MovieLabels: the shared movies as ids into one MovieTable, with
+	 * titles looked up only when a label is printed. Edges with a single shared movie
+	 * (most of them) all point at that movie's one shared label.
 	 * 
 	 * @param actors		actor ID to actor name map
 	 * @param movies		movie ID to movie name map	
@@ -77,30 +86,34 @@ public class BaconReader {
 	 * @return
 	 */
 	public Graph<String, Set<String>> buildGraph(Map<String, String> actors, Map<String, String> movies, Map<String, ArrayList<String>> movieActor){
+		long start = System.nanoTime();
 		Graph<String, Set<String>> g = new AdjacencyMapGraph<String, Set<String>>();
+		MovieTable table = new MovieTable();
 
 		for (String aID : actors.keySet()) {
 			g.insertVertex(actors.get(aID));
 		}
 
-		for (String aID : actors.keySet()) {
-			for (String mID : movieActor.keySet()) {
-				ArrayList<String> mAIDs = movieActor.get(mID);
-				if (mAIDs.contains(aID) && mAIDs.size() > 0) {
-					for (String mAID : mAIDs) {
-						if (!actors.get(mAID).equals(actors.get(aID))) {
-							if (!g.hasEdge(actors.get(aID), actors.get(mAID))) {
-								Set<String> label = new HashSet<String>();
-								label.add(movies.get(mID));
-								g.insertUndirected(actors.get(aID), actors.get(mAID), label);
-							} else {
-								g.getLabel(actors.get(aID), actors.get(mAID)).add(movies.get(mID));
-							}
-						}
+		// connect every pair of actors in each cast, rather than scanning every cast for every actor
+		for (String mID : movieActor.keySet()) {
+			int movie = table.add(movies.get(mID));		// each movie ID appears once in movieActor
+			ArrayList<String> mAIDs = movieActor.get(mID);
+			for (int i = 0; i < mAIDs.size(); i++) {
+				String a = actors.get(mAIDs.get(i));
+				if (a == null) continue;		// cast entry for an actor not in the actors file
+				for (int j = i + 1; j < mAIDs.size(); j++) {
+					String b = actors.get(mAIDs.get(j));
+					if (b == null || a.equals(b)) continue;
+					if (!g.hasEdge(a, b)) {
+						g.insertUndirected(a, b, table.single(movie));
+					} else {
+						MovieLabel label = ((MovieLabel)g.getLabel(a, b)).with(movie);
+						g.insertUndirected(a, b, label);	// same label object in both directions
 					}
 				}
 			}
 		}
+		BaconStats.recordBuild(System.nanoTime() - start);
 		return g;
 	}
 }
@@ -0,0 +1,154 @@
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+/**
+ * Scale test: for each size, generates synthetic data with BaconGenerator (reusing
+ * files already generated for that size and seed), loads it through BaconReader and
+ * buildGraph, and runs the game's query mix on it. Prints the time, peak heap and
+ * heap still in use after a GC for every stage, so the stage that stops scaling
+ * shows up.
+ *
+ * The query mix, as the UI would run it with Kevin Bacon as center:
+ *   center		bfs from Kevin Bacon, his average separation and component size (u, n)
+ *   paths		1000 paths from random actors back to him (p)
+ *   infinite	actors not connected to him (i)
+ *   degree		top 10 actors by degree (d)
+ *   separation	bfs and average separation from 10 random actors (other centers)
+ *   index		the IndexedGraph used for multi-source searches
+ *   centers	top 10 centers among the 256 highest-degree actors (c, on a sample)
+ *
+ * Usage: BaconScaleTest <work directory> [cast rows, e.g. 100000,1000000,10000000] [seed]
+ *
+ * Peak heap includes garbage not yet collected, so it is roughly the -Xmx a stage
+ * needs; heap after GC is what the stage leaves live. Give the JVM enough heap for
+ * the largest size; a stage that runs out is reported and the remaining sizes are
+ * skipped.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class BaconScaleTest {
+	private static List<String> results = new ArrayList<String>();
+
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1) {
+			System.out.println("Usage: BaconScaleTest <work directory> [cast rows, e.g. 100000,1000000,10000000] [seed]");
+			return;
+		}
+		File work = new File(args[0]);
+		String sizes = args.length > 1 ? args[1] : "100000,1000000";
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+		results.add("rows\tstage\tseconds\tpeak heap MB\theap after GC MB");
+
+		for(String size : sizes.split(",")) {
+			long rows = Long.parseLong(size.trim());
+			try {
+				run(new File(work, "rows-" + rows + "-seed-" + seed), rows, seed);
+			} catch (OutOfMemoryError e) {
+				System.out.println("out of memory at " + rows + " rows; skipping larger sizes");
+				break;
+			}
+		}
+		System.out.println();
+		for(String line : results) System.out.println(line);
+	}
+
+	private static void run(File dir, long rows, long seed) throws Exception {
+		System.out.println("== " + rows + " cast rows (" + dir + ")");
+		if(!new File(dir, BaconGenerator.CASTS).exists()) {
+			stage(rows, "generate", () -> {
+				new BaconGenerator(rows, seed).write(rows, dir);
+				return null;
+			});
+		}
+
+		BaconReader reader = new BaconReader();
+		Map<String, String> actors = stage(rows, "read actors", () -> reader.read(new File(dir, BaconGenerator.ACTORS).getPath()));
+		Map<String, String> movies = stage(rows, "read movies", () -> reader.read(new File(dir, BaconGenerator.MOVIES).getPath()));
+		Map<String, ArrayList<String>> casts = stage(rows, "read casts", () -> reader.idRead(new File(dir, BaconGenerator.CASTS).getPath()));
+		Graph<String, Set<String>> graph = stage(rows, "build graph", () -> reader.buildGraph(actors, movies, casts));
+		actors.clear();
+		movies.clear();
+		casts.clear();
+		System.out.println(graph.numVertices() + " actors, " + graph.numEdges() / 2 + " co-star pairs");
+
+		String center = "Kevin Bacon";
+		Random random = new Random(seed);
+		List<String> everyone = new ArrayList<String>();
+		for(String v : graph.vertices()) everyone.add(v);
+		Collections.sort(everyone);		// deterministic order for the seeded choices below
+
+		Graph<String, Set<String>> tree = stage(rows, "center", () -> {
+			Graph<String, Set<String>> paths = BaconGraphLib.bfs(graph, center);
+			System.out.println(center + " reaches " + paths.numVertices() + " actors, average separation "
+					+ BaconGraphLib.averageSeparation(paths, center));
+			return paths;
+		});
+		stage(rows, "paths", () -> {
+			long length = 0;
+			for(int i = 0; i < 1000; i++) {
+				String actor = everyone.get(random.nextInt(everyone.size()));
+				if(tree.hasVertex(actor)) length += BaconGraphLib.getPath(tree, actor).size();
+			}
+			return length;
+		});
+		stage(rows, "infinite", () -> BaconGraphLib.missingVertices(graph, tree).size());
+		stage(rows, "degree", () -> BaconGraphLib.topByInDegree(graph, 10));
+		stage(rows, "separation", () -> {
+			double total = 0;
+			for(int i = 0; i < 10; i++) {
+				String actor = everyone.get(random.nextInt(everyone.size()));
+				total += BaconGraphLib.averageSeparation(BaconGraphLib.bfs(graph, actor), actor);
+			}
+			return total;
+		});
+		IndexedGraph<String> indexed = stage(rows, "index", () -> new IndexedGraph<String>(graph, VertexOrder.BFS));
+		stage(rows, "centers", () -> {
+			List<String> candidates = BaconGraphLib.topByInDegree(graph, 256);
+			Map<String, Double> separation = MultiSourceBfs.averageSeparations(indexed, candidates, Runtime.getRuntime().availableProcessors());
+			List<String> top = TopK.select(candidates, 10, TopK.byScore(separation, true));
+			System.out.println("top center " + top.get(0) + ": " + separation.get(top.get(0)));
+			return top;
+		});
+	}
+
+	/**
+	 * Runs one stage, recording its time, the peak heap while it ran, and the heap
+	 * still in use afterwards
+	 */
+	private static <T> T stage(long rows, String name, Callable<T> task) throws Exception {
+		System.gc();
+		List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				pools.add(pool);
+			}
+		}
+		long start = System.nanoTime();
+		T result;
+		try {
+			result = task.call();
+		} catch (OutOfMemoryError e) {
+			String line = rows + "\t" + name + "\tout of memory";
+			System.out.println(line);
+			results.add(line);
+			throw e;
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long peak = 0;		// sum of each pool's own peak, so at most a little over the true peak
+		for(MemoryPoolMXBean pool : pools) peak += pool.getPeakUsage().getUsed();
+		System.gc();
+		Runtime rt = Runtime.getRuntime();
+		long after = rt.totalMemory() - rt.freeMemory();
+
+		String line = String.format("%d\t%s\t%.2f\t%.0f\t%.0f", rows, name, seconds, peak / 1e6, after / 1e6);
+		System.out.println(line);
+		results.add(line);
+		return result;
+	}
+}
@@ -0,0 +1,303 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP server that answers game queries as JSON, for other tools to use
+ * instead of the stdin UI. All requests share one read-only graph and one BfsCache.
+ *
+ *   GET /path?from=A&to=B					shortest path from A to B (B is the center)
+ *   GET /separation?center=X				connected actors and average separation from X
+ *   GET /components[?actor=X]				component count and largest sizes, or X's component
+ *   GET /degree?low=L&high=H[&limit=N]		actors with degree in [L, H], highest degree first
+ *   GET /distance?from=A&to=B				separation between A and B, from a saved PrunedLandmarkLabeling
+ *											if the server has one, else from a LandmarkOracle
+ *
+ * Each request runs on a virtual thread when the JVM has them (Java 21+),
+ * otherwise on a cached pool of platform threads.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class BaconServer {
+	private Graph<String, Set<String>> graph;
+	private BfsCache<String, Set<String>> cache;
+	private Map<String, Integer> component;		// actor -> component id
+	private List<Integer> componentSizes;		// component id -> size
+	private List<String> byDegree;				// all actors, highest degree first
+	private IndexedGraph<String> indexed;
+	private volatile LandmarkOracle<String> oracle;		// built on the first /distance without an index
+	private String oracleError;					// why the oracle couldn't be built, if it couldn't
+	private PrunedLandmarkLabeling index;		// exact distances, if one was given
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * Constructor for the server; precomputes components and the degree order
+	 *
+	 * @param graph		graph to serve, must not change while the server runs
+	 * @param cacheSize	max number of shortest path trees to keep
+	 */
+	public BaconServer(Graph<String, Set<String>> graph, int cacheSize) {
+		this(graph, cacheSize, null);
+	}
+
+	/**
+	 * Constructor for a server that answers /distance from a pruned landmark labeling
+	 *
+	 * @param graph		graph to serve, must not change while the server runs
+	 * @param cacheSize	max number of shortest path trees to keep
+	 * @param index		index of the same graph (see PrunedLandmarkLabeling.load), or null to use a LandmarkOracle
+	 */
+	public BaconServer(Graph<String, Set<String>> graph, int cacheSize, PrunedLandmarkLabeling index) {
+		this.graph = graph;
+		this.index = index;
+		this.cache = new BfsCache<String, Set<String>>(graph, cacheSize);
+		findComponents();
+
+		byDegree = new ArrayList<String>();
+		for(String v : graph.vertices()) byDegree.add(v);
+		byDegree.sort((v1, v2) -> graph.outDegree(v1) != graph.outDegree(v2) ? graph.outDegree(v2) - graph.outDegree(v1) : v1.compareTo(v2));
+	}
+
+	/**
+	 * Starts listening on localhost
+	 *
+	 * @param port		port to listen on, 0 for any free port
+	 * @return			port actually bound
+	 * @throws IOException
+	 */
+	public int start(int port) throws IOException {
+		// responses are tiny, so without TCP_NODELAY each one waits out a delayed ACK (~40ms)
+		if(System.getProperty("sun.net.httpserver.nodelay") == null)
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		server.createContext("/path", handler(this::path));
+		server.createContext("/separation", handler(this::separation));
+		server.createContext("/components", handler(this::components));
+		server.createContext("/degree", handler(this::degree));
+		server.createContext("/distance", handler(this::distance));
+		executor = newExecutor();
+		server.setExecutor(executor);
+		server.start();
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops the server, waiting up to a second for in-flight requests
+	 */
+	public void stop() {
+		server.stop(1);
+		executor.shutdown();
+	}
+
+	/**
+	 * One virtual thread per task if the runtime supports it, else a cached thread pool
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * A request that either returns a JSON body or throws a RequestException
+	 */
+	private interface Query {
+		String answer(Map<String, String> params) throws RequestException;
+	}
+
+	/**
+	 * Thrown by a query to send back an error status
+	 */
+	private static class RequestException extends Exception {
+		private static final long serialVersionUID = 1L;
+		private int status;
+
+		RequestException(int status, String message) {
+			super(message);
+			this.status = status;
+		}
+	}
+
+	/**
+	 * Wraps a query with parameter parsing, error handling and timing
+	 */
+	private HttpHandler handler(Query query) {
+		return (HttpExchange exchange) -> {
+			long start = System.nanoTime();
+			int status = 200;
+			String body;
+			try {
+				if(!exchange.getRequestMethod().equals("GET")) throw new RequestException(405, "only GET is supported");
+				body = query.answer(params(exchange.getRequestURI().getRawQuery()));
+			} catch (RequestException e) {
+				status = e.status;
+				body = "{\"error\":" + BaconBatch.quote(e.getMessage()) + "}";
+			} catch (RuntimeException e) {
+				status = 500;
+				body = "{\"error\":" + BaconBatch.quote(String.valueOf(e)) + "}";
+			}
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+			BaconStats.recordCommand(exchange.getHttpContext().getPath(), System.nanoTime() - start);
+		};
+	}
+
+	/**
+	 * Decodes a raw query string into a map
+	 */
+	private static Map<String, String> params(String query) {
+		Map<String, String> params = new HashMap<String, String>();
+		if(query == null) return params;
+		for(String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			if(eq < 0) continue;
+			params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+					URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+		}
+		return params;
+	}
+
+	/**
+	 * An actor parameter, which must be present and in the graph
+	 */
+	private String actor(Map<String, String> params, String key) throws RequestException {
+		String name = params.get(key);
+		if(name == null) throw new RequestException(400, "missing parameter " + key);
+		if(!graph.hasVertex(name)) throw new RequestException(404, "unknown actor " + name);
+		return name;
+	}
+
+	/**
+	 * An integer parameter, or the default if absent
+	 */
+	private static int number(Map<String, String> params, String key, Integer dflt) throws RequestException {
+		String value = params.get(key);
+		if(value == null) {
+			if(dflt == null) throw new RequestException(400, "missing parameter " + key);
+			return dflt;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new RequestException(400, key + " must be a number");
+		}
+	}
+
+	private String path(Map<String, String> params) throws RequestException {
+		String from = actor(params, "from");
+		String to = actor(params, "to");
+		Graph<String, Set<String>> paths = cache.tree(to);
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"from\":").append(BaconBatch.quote(from)).append(",\"to\":").append(BaconBatch.quote(to));
+		if(!paths.hasVertex(from)) return sb.append(",\"connected\":false}").toString();
+		List<String> path = BaconGraphLib.getPath(paths, from);
+		return sb.append(",\"connected\":true,\"number\":").append(path.size() - 1)
+				 .append(",\"path\":").append(BaconBatch.pathJson(path, paths)).append('}').toString();
+	}
+
+	private String separation(Map<String, String> params) throws RequestException {
+		String center = actor(params, "center");
+		Graph<String, Set<String>> paths = cache.tree(center);
+		return "{\"center\":" + BaconBatch.quote(center) + ",\"connected\":" + (paths.numVertices() - 1)
+				+ ",\"actors\":" + graph.numVertices() + ",\"average\":" + BaconGraphLib.averageSeparation(paths, center) + "}";
+	}
+
+	private String components(Map<String, String> params) throws RequestException {
+		if(params.containsKey("actor")) {
+			String name = actor(params, "actor");
+			int id = component.get(name);
+			return "{\"actor\":" + BaconBatch.quote(name) + ",\"component\":" + id + ",\"size\":" + componentSizes.get(id) + "}";
+		}
+		List<Integer> largest = new ArrayList<Integer>(componentSizes);
+		largest.sort(Collections.reverseOrder());
+		return "{\"components\":" + componentSizes.size() + ",\"largest\":" + largest.subList(0, Math.min(10, largest.size())).toString().replace(" ", "") + "}";
+	}
+
+	private String degree(Map<String, String> params) throws RequestException {
+		int low = number(params, "low", null);
+		int high = number(params, "high", null);
+		int limit = number(params, "limit", 100);
+		if(low > high) throw new RequestException(400, "low cannot be higher than high");
+		StringBuilder sb = new StringBuilder("{\"low\":" + low + ",\"high\":" + high + ",\"actors\":[");
+		int n = 0;
+		for(String v : byDegree) {
+			int d = graph.outDegree(v);
+			if(d < low) break;			// sorted high to low, nothing further can match
+			if(d > high) continue;
+			if(n == limit) break;
+			if(n++ > 0) sb.append(',');
+			sb.append("{\"actor\":").append(BaconBatch.quote(v)).append(",\"degree\":").append(d).append('}');
+		}
+		return sb.append("]}").toString();
+	}
+
+	private String distance(Map<String, String> params) throws RequestException {
+		if(index != null) {
+			int d = index.distance(actor(params, "from"), actor(params, "to"));
+			return "{\"from\":" + BaconBatch.quote(params.get("from")) + ",\"to\":" + BaconBatch.quote(params.get("to"))
+					+ ",\"connected\":" + (d != PrunedLandmarkLabeling.INFINITE) + (d != PrunedLandmarkLabeling.INFINITE ? ",\"distance\":" + d : "")
+					+ ",\"fromIndex\":true}";
+		}
+		String fromName = actor(params, "from"), toName = actor(params, "to");
+		LandmarkOracle<String> oracle = oracle();
+		int from = indexed.indexOf(fromName);
+		int to = indexed.indexOf(toName);
+		int[] bounds = oracle.bounds(from, to);
+		int d = oracle.distance(from, to, bounds);
+		return "{\"from\":" + BaconBatch.quote(params.get("from")) + ",\"to\":" + BaconBatch.quote(params.get("to"))
+				+ ",\"connected\":" + (d != LandmarkOracle.INFINITE) + (d != LandmarkOracle.INFINITE ? ",\"distance\":" + d : "")
+				+ ",\"fromBounds\":" + (bounds[0] == bounds[1]) + "}";
+	}
+
+	/**
+	 * The landmark oracle, built by the first request that needs it. Only /distance uses it, so
+	 * a graph it can't handle (landmark distances too long for a byte) fails just that query.
+	 */
+	private LandmarkOracle<String> oracle() throws RequestException {
+		LandmarkOracle<String> built = oracle;
+		if(built != null) return built;
+		synchronized(this) {
+			if(oracle == null && oracleError == null) {
+				try {
+					indexed = new IndexedGraph<String>(graph, VertexOrder.BFS);
+					oracle = new LandmarkOracle<String>(indexed, 16, LandmarkOracle.Selection.DEGREE);
+				} catch (IllegalStateException e) {
+					oracleError = e.getMessage();
+				}
+			}
+			if(oracle == null) throw new RequestException(503, "distance oracle unavailable for this graph: " + oracleError);
+			return oracle;
+		}
+	}
+
+	/**
+	 * Labels every actor with its connected component, one bfs per component
+	 */
+	private void findComponents() {
+		component = new HashMap<String, Integer>();
+		componentSizes = new ArrayList<Integer>();
+		for(String v : graph.vertices()) {
+			if(component.containsKey(v)) continue;
+			int id = componentSizes.size();
+			Graph<String, Set<String>> tree = BaconGraphLib.bfs(graph, v);
+			for(String u : tree.vertices()) component.put(u, id);
+			componentSizes.add(tree.numVertices());
+		}
+	}
+}
@@ -0,0 +1,175 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Instrumentation for the game: per-command latency histograms for BaconUI,
+ * traversal counters for BaconGraphLib.bfs, and parse/build counters for BaconReader.
+ * Everything is static so the hot paths only pay for a LongAdder update, and the
+ * whole thing compiles away when run with -Dbacon.stats=false.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class BaconStats implements BaconStatsMBean {
+	/** Checked by every hook before recording anything */
+	public static final boolean ENABLED = !"false".equals(System.getProperty("bacon.stats"));
+
+	private static final Map<String, LatencyHistogram> commands = new ConcurrentHashMap<String, LatencyHistogram>();
+	private static final LongAdder bfsCalls = new LongAdder();
+	private static final LongAdder verticesVisited = new LongAdder();
+	private static final LongAdder edgesVisited = new LongAdder();
+	private static final LongAdder linesRead = new LongAdder();
+	private static final LongAdder bytesRead = new LongAdder();
+	private static final LongAdder graphBuilds = new LongAdder();
+	private static final AtomicLong lastBuildNanos = new AtomicLong();
+
+	private static boolean registered = false;
+
+	/**
+	 * Records how long one UI command took
+	 *
+	 * @param command	command name, e.g. "p"
+	 * @param nanos		elapsed time in nanoseconds
+	 */
+	public static void recordCommand(String command, long nanos) {
+		if(!ENABLED) return;
+		commands.computeIfAbsent(command, c -> new LatencyHistogram()).record(nanos);
+	}
+
+	/**
+	 * Records one bfs call
+	 *
+	 * @param vertices	vertices dequeued
+	 * @param edges		edges examined
+	 */
+	public static void recordBfs(long vertices, long edges) {
+		if(!ENABLED) return;
+		bfsCalls.increment();
+		verticesVisited.add(vertices);
+		edgesVisited.add(edges);
+	}
+
+	/**
+	 * Records one file parsed by BaconReader
+	 *
+	 * @param lines		lines parsed
+	 * @param bytes		bytes parsed
+	 */
+	public static void recordRead(long lines, long bytes) {
+		if(!ENABLED) return;
+		linesRead.add(lines);
+		bytesRead.add(bytes);
+	}
+
+	/**
+	 * Records one graph build
+	 *
+	 * @param nanos		elapsed time in nanoseconds
+	 */
+	public static void recordBuild(long nanos) {
+		if(!ENABLED) return;
+		graphBuilds.increment();
+		lastBuildNanos.set(nanos);
+	}
+
+	/**
+	 * Histogram for a command, or null if it has never run
+	 */
+	public static LatencyHistogram command(String command) {
+		return commands.get(command);
+	}
+
+	/**
+	 * Registers the MBean with the platform MBean server (once), so the counters
+	 * show up in jconsole / VisualVM under BaconGame:type=BaconStats
+	 */
+	public static synchronized void register() {
+		if(registered || !ENABLED) return;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new BaconStats(), new ObjectName("BaconGame:type=BaconStats"));
+			registered = true;
+		} catch (Exception e) {
+			System.err.println("Could not register stats MBean: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Multi-line report used by the "stats" UI command
+	 */
+	public static String report() {
+		if(!ENABLED) return "Stats are disabled (-Dbacon.stats=false)";
+		StringBuilder sb = new StringBuilder();
+		sb.append("bfs: calls=").append(bfsCalls.sum())
+		  .append(" vertices=").append(verticesVisited.sum())
+		  .append(" edges=").append(edgesVisited.sum()).append("\n");
+		sb.append("reader: lines=").append(linesRead.sum())
+		  .append(" bytes=").append(bytesRead.sum())
+		  .append(" builds=").append(graphBuilds.sum())
+		  .append(String.format(" lastBuild=%.1fms", lastBuildNanos.get() / 1e6)).append("\n");
+		for(String line : new BaconStats().getCommandLatencies()) {
+			sb.append(line).append("\n");
+		}
+		return sb.toString();
+	}
+
+	public boolean isEnabled() {
+		return ENABLED;
+	}
+
+	public long getBfsCalls() {
+		return bfsCalls.sum();
+	}
+
+	public long getBfsVerticesVisited() {
+		return verticesVisited.sum();
+	}
+
+	public long getBfsEdgesVisited() {
+		return edgesVisited.sum();
+	}
+
+	public long getLinesRead() {
+		return linesRead.sum();
+	}
+
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	public long getGraphBuilds() {
+		return graphBuilds.sum();
+	}
+
+	public double getLastGraphBuildMillis() {
+		return lastBuildNanos.get() / 1e6;
+	}
+
+	public String[] getCommandLatencies() {
+		List<String> lines = new ArrayList<String>();
+		for(Map.Entry<String, LatencyHistogram> e : new TreeMap<String, LatencyHistogram>(commands).entrySet()) {
+			lines.add(e.getKey() + ": " + e.getValue().summary());
+		}
+		return lines.toArray(new String[0]);
+	}
+
+	public void reset() {
+		for(LatencyHistogram h : commands.values()) h.reset();
+		bfsCalls.reset();
+		verticesVisited.reset();
+		edgesVisited.reset();
+		linesRead.reset();
+		bytesRead.reset();
+		graphBuilds.reset();
+		lastBuildNanos.set(0);
+	}
+}
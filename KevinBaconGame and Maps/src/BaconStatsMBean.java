@@ -0,0 +1,38 @@
+/**
+ * JMX view of the game's instrumentation, registered as
+ * <code>BaconGame:type=BaconStats</code> by {@link BaconStats#register()}
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public interface BaconStatsMBean {
+	/** Whether instrumentation is recording (set with -Dbacon.stats=false to turn it off) */
+	public boolean isEnabled();
+
+	/** How many times BaconGraphLib.bfs has run */
+	public long getBfsCalls();
+
+	/** Total vertices dequeued over all bfs calls */
+	public long getBfsVerticesVisited();
+
+	/** Total edges examined over all bfs calls */
+	public long getBfsEdgesVisited();
+
+	/** Total lines parsed by BaconReader */
+	public long getLinesRead();
+
+	/** Total bytes parsed by BaconReader */
+	public long getBytesRead();
+
+	/** How many graphs BaconReader has built */
+	public long getGraphBuilds();
+
+	/** Wall-clock time of the most recent graph build, in milliseconds */
+	public double getLastGraphBuildMillis();
+
+	/** One latency summary per UI command, e.g. "p: n=3 mean=... p99=..." */
+	public String[] getCommandLatencies();
+
+	/** Clears every counter and histogram */
+	public void reset();
+}
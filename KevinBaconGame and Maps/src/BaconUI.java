@@ -1,5 +1,6 @@
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 /**
  *This class takes care of the actual interface of the Kevin Bacon Game
  * 
@@ -9,6 +10,9 @@ import java.util.*;
 public class BaconUI {
 	private Graph<String, Set<String>> graph;
 	private String universe;
+	private IndexedGraph<String> indexed;		// array copy of graph for multi-source searches, built on first use
+	private long commandStart;					// when the current command's work started, after its input was read
+	private static final Set<String> COMMANDS = new HashSet<String>(Arrays.asList("c", "d", "i", "p", "a", "s", "n", "u", "stats"));	// commands that get timed
 	
 	/**
 	 * Constructor for the BaconUI
@@ -31,7 +35,8 @@ public class BaconUI {
 							"s <low> <high>: list actors sorted by non-infinte separation from the current center with separation between low and high\n" + 
 						  	"n: find the number of actors who have a path to the current center\n" + 
 							"u <name>: make <name> the center of the universe\n" +
-						  	"q: quit game");
+						  	"stats: show command latencies and graph/reader counters\n" +
+							"q: quit game");
 		System.out.println();
 		System.out.println(universe + " is now the center of the acting universe, connected to "+ (BaconGraphLib.bfs(graph, universe).numVertices()-1) + "/" + graph.numVertices() + " actors with average separation " + BaconGraphLib.averageSeparation(BaconGraphLib.bfs(graph, universe), universe));
 		System.out.println();
@@ -41,14 +46,17 @@ public class BaconUI {
 			System.out.print(universe + " game >");
 			
 			command = reader.next();
+			commandStart = System.nanoTime();		// commands that read more input restart this once it's valid
 			
 			if(command.equals("c")) {
 				int num = reader.nextInt();
+				commandStart = System.nanoTime();
 				centers(num, reader);
 			}
 			else if(command.equals("d")) {
 				int low =  reader.nextInt();
 				int high = reader.nextInt();
+				commandStart = System.nanoTime();
 				degreeSort(low, high);
 			}
 			else if(command.equals("i")) {
@@ -66,6 +74,7 @@ public class BaconUI {
 			else if(command.equals("s")) {
 				int low =  reader.nextInt();
 				int high = reader.nextInt();
+				commandStart = System.nanoTime();
 				separationSort(low, high);
 			}
 			else if(command.equals("n")) {
@@ -77,7 +86,12 @@ public class BaconUI {
 					name = name.substring(1);
 				universe(name, reader);
 			}
+			else if(command.equals("stats")) {
+				System.out.print(BaconStats.report());
+			}
 			
+			if(COMMANDS.contains(command))
+				BaconStats.recordCommand(command, System.nanoTime() - commandStart);
 		}
 		reader.close();		
 	}
@@ -89,43 +103,40 @@ public class BaconUI {
 	 */
 	private void centers(int num, Scanner reader) {
 		Graph<String, Set<String>> paths = BaconGraphLib.bfs(graph, universe);
+		long waiting = System.nanoTime();
 		while(Math.abs(num) > paths.numVertices()) {
 			System.out.println("Too high! Enter lower number: ");
 			num = reader.nextInt();
 		}
+		commandStart += System.nanoTime() - waiting;		// don't time the user typing
 		
-		Map<String, Double> separation = new HashMap<String, Double>();
+		// one multi-source sweep per 64 centers instead of a bfs per center
+		List<String> component = new ArrayList<String>();
 		for(String v: paths.vertices()) {
-			separation.put(v, BaconGraphLib.averageSeparation(BaconGraphLib.bfs(graph, v), v));
+			component.add(v);
 		}
+		if(indexed == null)
+			indexed = new IndexedGraph<String>(graph, VertexOrder.BFS);
+		// rank the separations as the sweeps produce them, keeping only the |num| wanted
+		Map<String, Double> separation = new ConcurrentHashMap<String, Double>();
+		TopK<String> top = new TopK<String>(Math.abs(num), TopK.byScore(separation, num > 0));
+		MultiSourceBfs.averageSeparations(indexed, component, Runtime.getRuntime().availableProcessors(), (v, sep) -> {
+			separation.put(v, sep);
+			top.offer(v);
+		});
+		List<String> vertices = top.toList();
 		
-		List<String> vertices = new ArrayList<String>();
-		vertices.addAll(separation.keySet());
-		
-		Comparator<String> comp = (String v1, String v2) -> (int)((separation.get(v1) - separation.get(v2))*100); //idea from online (Stack Overflow), because we are dealing with doubles!
-		Collections.sort(vertices, comp);
-		
-		if(num > 0) {
+		if(num > 0)
 			System.out.println("The top " + num + " centers of the universe are");
-			System.out.print("[");
-			for(int i = 0; i < num; i++) {
-				if(i != num-1)
-					System.out.print(vertices.get(i)+ ": " + separation.get(vertices.get(i)) + ", ");
-				else
-					System.out.print(vertices.get(i)+ ": " + separation.get(vertices.get(i)) + "]");
-			}
+		else if(num < 0)
+			System.out.println("The bottom " + Math.abs(num) + " centers of the universe are");
+		System.out.print("[");
+		for(int i = 0; i < vertices.size(); i++) {
+			if(i > 0)
+				System.out.print(", ");
+			System.out.print(vertices.get(i)+ ": " + separation.get(vertices.get(i)));
 		}
-		else if(num < 0) {
-			Collections.reverse(vertices);
-			System.out.println("[");
-			for(int i = 0; i < Math.abs(num); i++) {
-				if(i != num-1)
-					System.out.print(vertices.get(i)+ ": " + separation.get(vertices.get(i)) + ", ");
-				else
-					System.out.print(vertices.get(i)+ ": " + separation.get(vertices.get(i)) + "]");
-			}
-		}
-		System.out.println();
+		System.out.println("]");
 	}
 	
 	/**
@@ -141,23 +152,23 @@ public class BaconUI {
 			List<String> vs = new ArrayList<String>();
 			Graph<String, Set<String>> paths = BaconGraphLib.bfs(graph, universe);
 			
+			// only the actors in range get sorted
 			for(String v: paths.vertices()) {
-				vs.add(v);
+				if((graph.inDegree(v) >= low) && (graph.inDegree(v) <= high))
+					vs.add(v);
 			}
 			
-			Comparator<String> comp = (String v1, String v2) -> paths.inDegree(v2) - paths.inDegree(v2);
+			Comparator<String> comp = Comparator.comparingInt((String v) -> graph.inDegree(v)).reversed().thenComparing(Comparator.naturalOrder());
 			Collections.sort(vs, comp);
 			
 			System.out.println("Actors sorted by degree, between "+ low+ " and " + high);
 			System.out.print("[");
 			for(int i = 0; i < vs.size(); i++) {
-				if((graph.inDegree(vs.get(i)) >= low) && (graph.inDegree(vs.get(i)) <= high)) {
-					if(i != vs.size()-1)
-						System.out.print(vs.get(i) + ":" + graph.inDegree(vs.get(i)) + ", " );
-					else
-						System.out.print(vs.get(i) + ": "+ graph.inDegree(vs.get((i))) + "]");
-				}
+				if(i > 0)
+					System.out.print(", ");
+				System.out.print(vs.get(i) + ": " + graph.inDegree(vs.get(i)));
 			}
+			System.out.print("]");
 		}
 		System.out.println();
 	}
@@ -180,6 +191,7 @@ public class BaconUI {
 			System.out.print("Actor not in graph. Enter another name: ");
 			name = reader.nextLine();
 		}
+		commandStart = System.nanoTime();		// don't time the user typing
 		
 		Graph<String, Set<String>> paths = BaconGraphLib.bfs(graph, universe);
 		if(paths.hasVertex(name)) {
@@ -271,6 +283,7 @@ public class BaconUI {
 			System.out.print("Actor not in graph. Enter another name: ");
 			name = reader.nextLine();
 		}
+		commandStart = System.nanoTime();		// don't time the user typing
 		universe = name;
 		System.out.println(universe + " is now the center of the acting universe, connected to "+ (BaconGraphLib.bfs(graph, universe).numVertices()-1) + "/" + graph.numVertices() + " actors with average separation " + BaconGraphLib.averageSeparation(BaconGraphLib.bfs(graph, universe), universe));
 	}
@@ -0,0 +1,71 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Thread-safe cache of shortest path trees, keyed by center. Concurrent requests
+ * for the same center share one bfs instead of each running their own, and the
+ * least recently used centers are evicted once the cache holds more than its capacity.
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class BfsCache<V,E> {
+	private final Graph<V,E> graph;
+	private final Map<V, CompletableFuture<Graph<V,E>>> trees;		// in access order; guarded by itself
+
+	/**
+	 * Constructor for the cache
+	 *
+	 * @param graph		graph to run bfs on, must not change while the cache is in use
+	 * @param capacity	max number of trees kept
+	 */
+	public BfsCache(Graph<V,E> graph, int capacity) {
+		this.graph = graph;
+		this.trees = new LinkedHashMap<V, CompletableFuture<Graph<V,E>>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<V, CompletableFuture<Graph<V,E>>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Shortest path tree for the center, computed on first use
+	 *
+	 * @param center	center of the universe, assumed to be in the graph
+	 * @return			shortest path tree, shared with other callers so must not be modified
+	 */
+	public Graph<V,E> tree(V center) {
+		CompletableFuture<Graph<V,E>> mine, existing;
+		synchronized(trees) {
+			existing = trees.get(center);		// also marks center as recently used
+			mine = existing == null ? new CompletableFuture<Graph<V,E>>() : null;
+			if(existing == null) trees.put(center, mine);
+		}
+		if(existing != null) return existing.join();
+
+		// this thread owns the computation (outside the lock); anyone else asking for center waits on it.
+		// Errors too (OutOfMemoryError on big graphs) must complete the future, or its waiters hang forever
+		try {
+			mine.complete(BaconGraphLib.bfs(graph, center));
+		} catch (Throwable e) {
+			synchronized(trees) {
+				trees.remove(center, mine);
+			}
+			mine.completeExceptionally(e);
+			throw e;
+		}
+		return mine.join();
+	}
+
+	/** How many trees are currently cached */
+	public int size() {
+		synchronized(trees) {
+			return trees.size();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only, array-based copy of a graph's out-edges for the traversal-heavy code:
+ * vertices are numbered 0..n-1 and the neighbors of vertex i are
+ * targets[offsets[i]] .. targets[offsets[i+1]-1] (compressed sparse row layout).
+ * The original vertex objects are kept so results can be mapped back.
+ *
+ * @param <V>	the type of vertices
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class IndexedGraph<V> {
+	protected Object[] names;				// index -> vertex
+	protected Map<V, Integer> index;		// vertex -> index
+	protected int[] offsets;				// n+1 entries
+	protected int[] targets;				// numEdges entries
+
+	/**
+	 * Copies the vertices and out-edges of g, numbering vertices in g's iteration order
+	 *
+	 * @param g		graph to copy
+	 */
+	public IndexedGraph(Graph<V,?> g) {
+		int n = g.numVertices();
+		names = new Object[n];
+		index = new HashMap<V, Integer>();
+		int i = 0;
+		for(V v : g.vertices()) {
+			names[i] = v;
+			index.put(v, i++);
+		}
+
+		offsets = new int[n + 1];
+		for(i = 0; i < n; i++) offsets[i+1] = offsets[i] + g.outDegree(vertex(i));
+		targets = new int[offsets[n]];
+		for(i = 0; i < n; i++) {
+			int e = offsets[i];
+			for(V u : g.outNeighbors(vertex(i))) targets[e++] = index.get(u);
+			Arrays.sort(targets, offsets[i], offsets[i+1]);
+		}
+	}
+
+	/**
+	 * Copies the vertices and out-edges of g, then renumbers the vertices with the
+	 * given ordering so that vertices searched together sit close together in memory.
+	 * vertex() and indexOf() still map between indices and the original vertices.
+	 *
+	 * @param g			graph to copy
+	 * @param order		how to number the vertices
+	 */
+	public IndexedGraph(Graph<V,?> g, VertexOrder order) {
+		this(g);
+		renumber(order.order(this));
+	}
+
+	/**
+	 * Renumbers the vertices in place
+	 *
+	 * @param order		order[i] is the current index of the vertex that becomes index i
+	 */
+	protected void renumber(int[] order) {
+		int n = numVertices();
+		int[] position = new int[n];		// current index -> new index
+		for(int i = 0; i < n; i++) position[order[i]] = i;
+
+		Object[] newNames = new Object[n];
+		int[] newOffsets = new int[n + 1];
+		int[] newTargets = new int[targets.length];
+		for(int i = 0; i < n; i++) {
+			int old = order[i];
+			newNames[i] = names[old];
+			index.put(vertex(old), i);
+			int e = newOffsets[i];
+			for(int f = offsets[old]; f < offsets[old+1]; f++) newTargets[e++] = position[targets[f]];
+			newOffsets[i+1] = e;
+			Arrays.sort(newTargets, newOffsets[i], e);
+		}
+		names = newNames;
+		offsets = newOffsets;
+		targets = newTargets;
+	}
+
+	/** How many vertices in the graph */
+	public int numVertices() {
+		return names.length;
+	}
+
+	/** How many (directed) edges in the graph */
+	public int numEdges() {
+		return targets.length;
+	}
+
+	/** The vertex with the given index */
+	@SuppressWarnings("unchecked")
+	public V vertex(int i) {
+		return (V)names[i];
+	}
+
+	/** The index of the vertex, or -1 if it isn't in the graph */
+	public int indexOf(V v) {
+		Integer i = index.get(v);
+		return i == null ? -1 : i;
+	}
+
+	/** How many edges from the vertex with the given index */
+	public int outDegree(int i) {
+		return offsets[i+1] - offsets[i];
+	}
+
+	/** Position in targets() of the first out-neighbor of vertex i; the last is at offsets()[i+1]-1 */
+	public int[] offsets() {
+		return offsets;
+	}
+
+	/** Out-neighbor indices of every vertex, grouped by vertex and sorted within each group */
+	public int[] targets() {
+		return targets;
+	}
+
+	/**
+	 * Breadth-first search from a single source
+	 *
+	 * @param source	index of the center of the universe
+	 * @return			hop distance to every vertex, -1 where unreachable
+	 */
+	public int[] distances(int source) {
+		int n = numVertices();
+		int[] dist = new int[n];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		dist[source] = 0;
+		queue[tail++] = source;
+		while(head < tail) {
+			int u = queue[head++];
+			for(int e = offsets[u]; e < offsets[u+1]; e++) {
+				int v = targets[e];
+				if(dist[v] < 0) {
+					dist[v] = dist[u] + 1;
+					queue[tail++] = v;
+				}
+			}
+		}
+		return dist;
+	}
+}
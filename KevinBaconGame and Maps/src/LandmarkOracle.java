@@ -0,0 +1,234 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distance oracle for "how far apart are actor X and actor Y" without a full bfs.
+ * A bfs from each of a few landmark actors is run once up front, and the hop
+ * distances are stored one byte each, grouped by vertex so a query reads two
+ * short contiguous rows. For any pair the landmarks give, by the triangle inequality,
+ *
+ *   lower = max over landmarks |d(l,u) - d(l,v)|   and   upper = min over landmarks d(l,u) + d(l,v)
+ *
+ * in O(#landmarks). When the bounds disagree, distance() settles it with a
+ * bidirectional bfs that stops as soon as it can't beat the upper bound.
+ * Assumes the graph is undirected, as the actor graph is.
+ *
+ * @param <V>	the type of vertices
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class LandmarkOracle<V> {
+	/** How landmarks are picked */
+	public enum Selection {
+		/** Highest degree actors */
+		DEGREE,
+		/** Actors closest to everyone else they can reach (reached^2 / total distance) */
+		CLOSENESS
+	}
+
+	/** Returned by bounds and distances for a pair that isn't connected */
+	public static final int INFINITE = Integer.MAX_VALUE;
+
+	private static final int UNREACHED = 0xFF;		// byte value for a vertex the landmark can't reach
+	private static final int MAX_SPARE = 2 * Runtime.getRuntime().availableProcessors();		// idle workspaces kept for reuse
+
+	private IndexedGraph<V> g;
+	private int[] landmarks;		// landmark vertex indices
+	private byte[] dist;			// dist[v * k + l] = distance from landmark l to v, UNREACHED if none
+	private ConcurrentLinkedQueue<int[][]> spare = new ConcurrentLinkedQueue<int[][]>();	// idle distance and queue arrays for search()
+	private AtomicInteger spareCount = new AtomicInteger();
+
+	/**
+	 * Picks the landmarks and runs a bfs from each
+	 *
+	 * @param g			indexed graph to answer queries on
+	 * @param k			number of landmarks
+	 * @param how		how to pick them
+	 */
+	public LandmarkOracle(IndexedGraph<V> g, int k, Selection how) {
+		this.g = g;
+		int n = g.numVertices();
+		landmarks = choose(g, Math.min(k, n), how);
+		k = landmarks.length;
+		dist = new byte[n * k];
+		Arrays.fill(dist, (byte)UNREACHED);
+		for(int l = 0; l < k; l++) {
+			int[] d = g.distances(landmarks[l]);
+			for(int v = 0; v < n; v++) {
+				if(d[v] < 0) continue;
+				if(d[v] >= UNREACHED) throw new IllegalStateException("Distance " + d[v] + " too large to store in a byte");
+				dist[v * k + l] = (byte)d[v];
+			}
+		}
+	}
+
+	/** The landmark vertices */
+	public List<V> landmarks() {
+		List<V> list = new ArrayList<V>();
+		for(int l : landmarks) list.add(g.vertex(l));
+		return list;
+	}
+
+	/** Bytes used by the precomputed distances */
+	public long bytes() {
+		return dist.length;
+	}
+
+	/**
+	 * Lower and upper bounds on the distance between two vertices
+	 *
+	 * @param u		index of one vertex
+	 * @param v		index of the other
+	 * @return		{lower, upper}; both INFINITE if a landmark shows they aren't connected,
+	 * 				upper is INFINITE if no landmark reaches them
+	 */
+	public int[] bounds(int u, int v) {
+		if(u == v) return new int[] {0, 0};
+		int k = landmarks.length;
+		int lower = 1, upper = INFINITE;
+		for(int l = 0, iu = u * k, iv = v * k; l < k; l++) {
+			int du = dist[iu + l] & 0xFF, dv = dist[iv + l] & 0xFF;
+			if(du == UNREACHED && dv == UNREACHED) continue;
+			if(du == UNREACHED || dv == UNREACHED) return new int[] {INFINITE, INFINITE};	// one is in the landmark's component, the other isn't
+			lower = Math.max(lower, Math.abs(du - dv));
+			upper = Math.min(upper, du + dv);
+		}
+		return new int[] {lower, upper};
+	}
+
+	/**
+	 * Exact distance between two vertices, from the bounds when they agree
+	 * and a bounded bidirectional bfs otherwise
+	 *
+	 * @param u		index of one vertex
+	 * @param v		index of the other
+	 * @return		hop distance, INFINITE if not connected
+	 */
+	public int distance(int u, int v) {
+		return distance(u, v, bounds(u, v));
+	}
+
+	/**
+	 * Exact distance between two vertices whose bounds the caller already has
+	 *
+	 * @param u		index of one vertex
+	 * @param v		index of the other
+	 * @param b		bounds(u, v)
+	 * @return		hop distance, INFINITE if not connected
+	 */
+	public int distance(int u, int v, int[] b) {
+		if(b[0] == b[1]) return b[0];
+		return search(u, v, b[0], b[1]);
+	}
+
+	/**
+	 * Exact distance between two vertices by name
+	 *
+	 * @param u		one vertex
+	 * @param v		the other
+	 * @return		hop distance, INFINITE if not connected
+	 * @throws IllegalArgumentException		if either vertex isn't in the graph
+	 */
+	public int distance(V u, V v) {
+		int iu = g.indexOf(u), iv = g.indexOf(v);
+		if(iu < 0 || iv < 0) throw new IllegalArgumentException("Vertex not in graph: " + (iu < 0 ? u : v));
+		return distance(iu, iv);
+	}
+
+	/**
+	 * Bidirectional bfs between u and v that gives up once no path shorter than
+	 * the best known (initially the landmark upper bound) can remain
+	 */
+	private int search(int u, int v, int lower, int upper) {
+		int[] offsets = g.offsets(), targets = g.targets();
+		int[][] buffers = borrow();
+		int[] distU = buffers[0], distV = buffers[1], queueU = buffers[2], queueV = buffers[3];
+		int headU = 0, tailU = 0, headV = 0, tailV = 0;
+		distU[u] = 0; queueU[tailU++] = u;
+		distV[v] = 0; queueV[tailV++] = v;
+		int levelU = 0, levelV = 0;
+		int best = upper;
+
+		// every path not found yet is longer than levelU + levelV
+		while(headU < tailU && headV < tailV && levelU + levelV + 1 < best && best > lower) {
+			boolean forward = tailU - headU <= tailV - headV;		// expand the smaller frontier
+			int[] dist = forward ? distU : distV, other = forward ? distV : distU, queue = forward ? queueU : queueV;
+			int head = forward ? headU : headV, tail = forward ? tailU : tailV;
+			int end = tail;
+			for(; head < end; head++) {
+				int x = queue[head];
+				for(int e = offsets[x]; e < offsets[x+1]; e++) {
+					int y = targets[e];
+					if(other[y] >= 0) best = Math.min(best, dist[x] + 1 + other[y]);
+					if(dist[y] < 0) {
+						dist[y] = dist[x] + 1;
+						queue[tail++] = y;
+					}
+				}
+			}
+			if(forward) { headU = head; tailU = tail; levelU++; }
+			else { headV = head; tailV = tail; levelV++; }
+		}
+		// put back only the entries this search touched, so the next one starts clean
+		for(int i = 0; i < tailU; i++) distU[queueU[i]] = -1;
+		for(int i = 0; i < tailV; i++) distV[queueV[i]] = -1;
+		giveBack(buffers);
+		// if a side ran out before the sides met there is no path, and best is still INFINITE
+		return best;
+	}
+
+	/**
+	 * A clean workspace: {distU, distV, queueU, queueV}, the dist arrays all -1.
+	 * Reuses an idle one when there is one, so a search per request (as the server
+	 * does, on a new thread each time) doesn't allocate and fill O(n) arrays.
+	 */
+	private int[][] borrow() {
+		int[][] buffers = spare.poll();
+		if(buffers != null) {
+			spareCount.decrementAndGet();
+			return buffers;
+		}
+		int n = g.numVertices();
+		buffers = new int[4][n];
+		Arrays.fill(buffers[0], -1);
+		Arrays.fill(buffers[1], -1);
+		return buffers;
+	}
+
+	/**
+	 * Returns a workspace after search() has cleaned it, keeping at most MAX_SPARE idle
+	 */
+	private void giveBack(int[][] buffers) {
+		if(spareCount.incrementAndGet() <= MAX_SPARE) spare.offer(buffers);
+		else spareCount.decrementAndGet();
+	}
+
+	/**
+	 * Picks k landmark indices
+	 */
+	private static int[] choose(IndexedGraph<?> g, int k, Selection how) {
+		int n = g.numVertices();
+		double[] score = new double[n];
+		if(how == Selection.DEGREE) {
+			for(int v = 0; v < n; v++) score[v] = g.outDegree(v);
+		}
+		else {
+			int[] all = new int[n];
+			for(int v = 0; v < n; v++) all[v] = v;
+			long[] sums = new long[n];
+			int[] reached = new int[n];
+			for(int from = 0; from < n; from += MultiSourceBfs.WIDTH) {
+				MultiSourceBfs.run(g, all, from, Math.min(MultiSourceBfs.WIDTH, n - from), sums, reached);
+			}
+			for(int v = 0; v < n; v++) score[v] = sums[v] == 0 ? 0 : (double)(reached[v] - 1) * (reached[v] - 1) / sums[v];
+		}
+		Integer[] order = new Integer[n];
+		for(int v = 0; v < n; v++) order[v] = v;
+		Arrays.sort(order, (a, b) -> score[a] != score[b] ? Double.compare(score[b], score[a]) : Integer.compare(a, b));
+		int[] chosen = new int[k];
+		for(int i = 0; i < k; i++) chosen[i] = order[i];
+		return chosen;
+	}
+}
@@ -0,0 +1,86 @@
+import java.util.*;
+
+/**
+ * Tester for LandmarkOracle: builds oracles with several landmark counts and both
+ * selections, then on random actor pairs checks distance() against a plain bfs and
+ * reports precomputation time, memory, how often the bounds alone are exact, and
+ * query latency. Uses the same -Dbacon.* data file properties as BaconDriver.
+ *
+ * Usage: LandmarkOracleTester [pairs] [seed]
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class LandmarkOracleTester {
+
+	public static void main(String[] args) throws Exception {
+		int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+		Graph<String, Set<String>> graph = BaconDriver.loadGraph();
+		IndexedGraph<String> g = new IndexedGraph<String>(graph, VertexOrder.BFS);
+		int n = g.numVertices();
+
+		// random pairs and their true distances, from one bfs per distinct source
+		Random random = new Random(seed);
+		int[] us = new int[pairs], vs = new int[pairs], truth = new int[pairs];
+		for(int i = 0; i < pairs; i++) {
+			us[i] = random.nextInt(n);
+			vs[i] = random.nextInt(n);
+			int d = g.distances(us[i])[vs[i]];
+			truth[i] = d < 0 ? LandmarkOracle.INFINITE : d;
+		}
+
+		System.out.println("selection\tk\tbuild(ms)\tbytes\tbounds(us)\tdistance(us)\ttight\tupper exact\tupper err\twrong");
+		for(LandmarkOracle.Selection how : LandmarkOracle.Selection.values()) {
+			for(int k : new int[] {4, 16, 64}) {
+				long start = System.nanoTime();
+				LandmarkOracle<String> oracle = new LandmarkOracle<String>(g, k, how);
+				double buildMs = (System.nanoTime() - start) / 1e6;
+
+				int tight = 0, upperExact = 0, connected = 0, wrong = 0;
+				long upperError = 0;
+				for(int round = 0; round < 2; round++) {		// first round warms up the JIT
+					start = System.nanoTime();
+					for(int i = 0; i < pairs; i++) {
+						int[] b = oracle.bounds(us[i], vs[i]);
+						if(round == 1) {
+							if(b[0] == b[1]) tight++;
+							if(truth[i] != LandmarkOracle.INFINITE && b[1] != LandmarkOracle.INFINITE) {
+								connected++;
+								if(b[1] == truth[i]) upperExact++;
+								upperError += b[1] - truth[i];
+							}
+						}
+					}
+				}
+				double boundsUs = (System.nanoTime() - start) / 1e3 / pairs;
+
+				start = System.nanoTime();
+				for(int i = 0; i < pairs; i++) {
+					if(oracle.distance(us[i], vs[i]) != truth[i]) wrong++;
+				}
+				double distanceUs = (System.nanoTime() - start) / 1e3 / pairs;
+
+				System.out.println(how + "\t" + k + "\t" + String.format("%.1f", buildMs) + "\t" + oracle.bytes()
+						+ "\t" + String.format("%.2f", boundsUs) + "\t" + String.format("%.1f", distanceUs)
+						+ "\t" + String.format("%.1f%%", 100.0 * tight / pairs)
+						+ "\t" + String.format("%.1f%%", 100.0 * upperExact / Math.max(1, connected))
+						+ "\t" + String.format("%.3f", (double)upperError / Math.max(1, connected)) + "\t" + wrong);
+			}
+		}
+
+		// baseline: a full bfs per pair, as the UI would need
+		fullBfs(g, us, vs);
+	}
+
+	/**
+	 * Times answering each pair with a full single-source bfs
+	 */
+	private static void fullBfs(IndexedGraph<String> g, int[] us, int[] vs) {
+		long start = System.nanoTime();
+		for(int i = 0; i < us.length; i++) g.distances(us[i]);
+		System.out.println(String.format("full bfs per pair: %.1fus", (System.nanoTime() - start) / 1e3 / us.length));
+	}
+
+}
@@ -0,0 +1,118 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size latency histogram in the style of HdrHistogram: values below 64 get
+ * their own bucket, larger values are grouped into 32 sub-buckets per power of two,
+ * so every recorded value is kept to within about 3%. Recording is lock-free, so
+ * the same histogram can be shared by the UI, batch and server threads.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class LatencyHistogram {
+	private static final int LINEAR = 64;		// values below this are exact
+	private static final int SUB = 32;			// sub-buckets per power of two above that
+	private static final int BUCKETS = LINEAR + 58 * SUB;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+	/**
+	 * Records a single value (nanoseconds for latencies, but any non-negative long works)
+	 *
+	 * @param value		value to record, negative values are treated as 0
+	 */
+	public void record(long value) {
+		if(value < 0) value = 0;
+		counts.incrementAndGet(index(value));
+		total.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+		min.accumulateAndGet(value, Math::min);
+	}
+
+	/** How many values have been recorded */
+	public long count() {
+		return total.get();
+	}
+
+	/** Largest value recorded, 0 if empty */
+	public long max() {
+		return max.get();
+	}
+
+	/** Smallest value recorded, 0 if empty */
+	public long min() {
+		return count() == 0 ? 0 : min.get();
+	}
+
+	/** Average of the recorded values, 0 if empty */
+	public double mean() {
+		long n = count();
+		return n == 0 ? 0 : (double)sum.get() / n;
+	}
+
+	/**
+	 * Value at the given percentile, reported as the highest value equivalent to
+	 * the bucket it falls in (capped at the true maximum)
+	 *
+	 * @param percentile	between 0 and 100
+	 * @return				value at that percentile, 0 if empty
+	 */
+	public long percentile(double percentile) {
+		long n = count();
+		if(n == 0) return 0;
+		long target = Math.max(1, (long)Math.ceil(percentile / 100.0 * n));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if(seen >= target) return Math.min(highestEquivalent(i), max());
+		}
+		return max();
+	}
+
+	/**
+	 * Clears all recorded values
+	 */
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+		total.set(0);
+		sum.set(0);
+		max.set(0);
+		min.set(Long.MAX_VALUE);
+	}
+
+	/**
+	 * One-line summary, with values scaled from nanoseconds to microseconds
+	 */
+	public String summary() {
+		return String.format("n=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+				count(), mean() / 1e3, percentile(50) / 1e3, percentile(90) / 1e3,
+				percentile(99) / 1e3, max() / 1e3);
+	}
+
+	/**
+	 * Bucket that a value falls in
+	 */
+	private static int index(long value) {
+		if(value < LINEAR) return (int)value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - 5;	// keep the leading bit and the 5 below it
+		int top = (int)(value >>> shift);						// in [SUB, 2*SUB)
+		return LINEAR + (shift - 1) * SUB + (top - SUB);
+	}
+
+	/**
+	 * Largest value that would land in the given bucket
+	 */
+	private static long highestEquivalent(int index) {
+		if(index < LINEAR) return index;
+		int k = index - LINEAR;
+		int shift = k / SUB + 1;
+		long top = k % SUB + SUB;
+		return ((top + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,71 @@
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Edge label for the actor graph: the movies two actors share, stored as a sorted
+ * array of MovieTable ids rather than a HashSet of titles. Titles are only looked up
+ * when the label is iterated or printed (e.g. a hop in BaconUI's path), so it can
+ * be used anywhere a Set<String> of titles was. Labels are immutable; with() returns
+ * a new label with one more movie.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class MovieLabel extends AbstractSet<String> {
+	private final MovieTable table;
+	private final int[] ids;		// sorted, no duplicates
+
+	/**
+	 * Constructor for a label; use MovieTable.single() for one-movie labels so they are shared
+	 *
+	 * @param table		table the ids refer to
+	 * @param ids		sorted movie ids
+	 */
+	MovieLabel(MovieTable table, int[] ids) {
+		this.table = table;
+		this.ids = ids;
+	}
+
+	/**
+	 * This label plus one more movie
+	 *
+	 * @param id	movie id to add
+	 * @return		this label if it already has the movie, otherwise a new label
+	 */
+	public MovieLabel with(int id) {
+		int pos = Arrays.binarySearch(ids, id);
+		if(pos >= 0) return this;
+		pos = -pos - 1;
+		int[] more = new int[ids.length + 1];
+		System.arraycopy(ids, 0, more, 0, pos);
+		more[pos] = id;
+		System.arraycopy(ids, pos, more, pos + 1, ids.length - pos);
+		return new MovieLabel(table, more);
+	}
+
+	/** Movie id at position i, in increasing id order */
+	public int id(int i) {
+		return ids[i];
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int i = 0;
+
+			public boolean hasNext() {
+				return i < ids.length;
+			}
+
+			public String next() {
+				if(i >= ids.length) throw new NoSuchElementException();
+				return table.title(ids[i++]);
+			}
+		};
+	}
+}
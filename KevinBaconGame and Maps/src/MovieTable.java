@@ -0,0 +1,48 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Symbol table for movies: gives each movie a dense int id so edge labels can
+ * store ints instead of titles, and resolves ids back to titles when a label is
+ * printed. Also hands out one shared MovieLabel per movie for the (very common)
+ * edges whose actors share exactly one movie.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class MovieTable {
+	private List<String> titles = new ArrayList<String>();				// id -> title
+	private List<MovieLabel> singles = new ArrayList<MovieLabel>();		// id -> label holding just that movie, made on first use
+
+	/**
+	 * Adds a movie
+	 *
+	 * @param title		title to resolve the new id to
+	 * @return			the movie's id
+	 */
+	public int add(String title) {
+		titles.add(title);
+		singles.add(null);
+		return titles.size() - 1;
+	}
+
+	/** Title for an id */
+	public String title(int id) {
+		return titles.get(id);
+	}
+
+	/** How many movies in the table */
+	public int size() {
+		return titles.size();
+	}
+
+	/** Shared label containing just the one movie */
+	public MovieLabel single(int id) {
+		MovieLabel label = singles.get(id);
+		if(label == null) {
+			label = new MovieLabel(this, new int[] {id});
+			singles.set(id, label);
+		}
+		return label;
+	}
+}
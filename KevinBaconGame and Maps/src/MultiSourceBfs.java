@@ -0,0 +1,129 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/**
+ * Multi-source breadth-first search (MS-BFS): runs up to 64 traversals at once over
+ * an IndexedGraph, keeping one bit per source in a long for each vertex, so a single
+ * sweep over the adjacency lists advances all 64 frontiers together. Used for
+ * statistics that need a bfs from many centers, like ranking centers by average
+ * separation.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class MultiSourceBfs {
+	/** How many sources one sweep handles */
+	public static final int WIDTH = 64;
+
+	/**
+	 * Runs one batch of up to 64 sources
+	 *
+	 * @param g			graph to search
+	 * @param sources	source indices
+	 * @param from		position in sources of the first source in this batch
+	 * @param count		how many sources in this batch (at most 64)
+	 * @param sums		out: sums[from+i] gets the total distance from source i to everything it reaches
+	 * @param reached	out: reached[from+i] gets how many vertices source i reaches, itself included
+	 */
+	public static void run(IndexedGraph<?> g, int[] sources, int from, int count, long[] sums, int[] reached) {
+		int n = g.numVertices();
+		int[] offsets = g.offsets(), targets = g.targets();
+		long[] seen = new long[n];		// bit i set once source i has reached the vertex
+		long[] visit = new long[n];		// bit i set if the vertex is on source i's current frontier
+		long[] next = new long[n];		// frontiers for the next level
+
+		for(int i = 0; i < count; i++) {
+			int s = sources[from + i];
+			seen[s] |= 1L << i;
+			visit[s] |= 1L << i;
+			sums[from + i] = 0;
+			reached[from + i] = 1;
+		}
+
+		boolean more = true;
+		for(int level = 1; more; level++) {
+			more = false;
+			for(int u = 0; u < n; u++) {
+				long frontier = visit[u];
+				if(frontier == 0) continue;
+				for(int e = offsets[u]; e < offsets[u+1]; e++) {
+					int v = targets[e];
+					long fresh = frontier & ~seen[v];
+					if(fresh != 0) {
+						seen[v] |= fresh;
+						next[v] |= fresh;
+					}
+				}
+			}
+			for(int v = 0; v < n; v++) {
+				long bits = next[v];
+				if(bits == 0) continue;
+				more = true;
+				while(bits != 0) {		// credit this level to every source that just arrived at v
+					int i = Long.numberOfTrailingZeros(bits);
+					sums[from + i] += level;
+					reached[from + i]++;
+					bits &= bits - 1;
+				}
+			}
+			long[] t = visit; visit = next; next = t;
+			Arrays.fill(next, 0);
+		}
+	}
+
+	/**
+	 * Average separation from each of the given centers, the same values as
+	 * BaconGraphLib.averageSeparation(BaconGraphLib.bfs(graph, v), v), computed 64 at a time
+	 *
+	 * @param g			indexed copy of the graph
+	 * @param centers	vertices to compute the separation for
+	 * @param threads	number of worker threads (batches are split between them)
+	 * @return			center -> average separation
+	 */
+	public static <V> Map<V, Double> averageSeparations(IndexedGraph<V> g, Collection<V> centers, int threads) {
+		Map<V, Double> separation = new ConcurrentHashMap<V, Double>();
+		averageSeparations(g, centers, threads, separation::put);
+		return separation;
+	}
+
+	/**
+	 * Average separation from each of the given centers, handed to a sink as each batch
+	 * finishes rather than collected, so a consumer like TopK can rank them as they come.
+	 * The sink is called from the worker threads and must be thread-safe.
+	 *
+	 * @param g			indexed copy of the graph
+	 * @param centers	vertices to compute the separation for
+	 * @param threads	number of worker threads (batches are split between them)
+	 * @param sink		called with (center, average separation) once per center
+	 */
+	public static <V> void averageSeparations(IndexedGraph<V> g, Collection<V> centers, int threads, BiConsumer<V, Double> sink) {
+		int[] sources = new int[centers.size()];
+		int k = 0;
+		for(V v : centers) sources[k++] = g.indexOf(v);
+		long[] sums = new long[sources.length];
+		int[] reached = new int[sources.length];
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			List<Future<?>> tasks = new ArrayList<Future<?>>();
+			for(int from = 0; from < sources.length; from += WIDTH) {
+				int start = from, count = Math.min(WIDTH, sources.length - from);
+				tasks.add(pool.submit(() -> {
+					run(g, sources, start, count, sums, reached);
+					for(int i = start; i < start + count; i++) {
+						sink.accept(g.vertex(sources[i]), (double)sums[i] / reached[i]);
+					}
+				}));
+			}
+			for(Future<?> task : tasks) task.get();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
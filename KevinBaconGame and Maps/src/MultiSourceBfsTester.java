@@ -0,0 +1,45 @@
+import java.util.*;
+
+/**
+ * Tester for MultiSourceBfs: checks that it gives exactly the same average separation
+ * as bfs + averageSeparation for every actor, then times the all-sources computation
+ * both ways. Uses the same -Dbacon.* data file properties as BaconDriver.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class MultiSourceBfsTester {
+
+	public static void main(String[] args) throws Exception {
+		Graph<String, Set<String>> graph = BaconDriver.loadGraph();
+		List<String> all = new ArrayList<String>();
+		for(String v : graph.vertices()) all.add(v);
+
+		long start = System.nanoTime();
+		Map<String, Double> expected = new HashMap<String, Double>();
+		for(String v : all) {
+			expected.put(v, BaconGraphLib.averageSeparation(BaconGraphLib.bfs(graph, v), v));
+		}
+		double bfsSeconds = (System.nanoTime() - start) / 1e9;
+
+		start = System.nanoTime();
+		IndexedGraph<String> indexed = new IndexedGraph<String>(graph);
+		double indexSeconds = (System.nanoTime() - start) / 1e9;
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		start = System.nanoTime();
+		Map<String, Double> actual = MultiSourceBfs.averageSeparations(indexed, all, threads);
+		double msSeconds = (System.nanoTime() - start) / 1e9;
+
+		int mismatches = 0;
+		for(String v : all) {
+			if(!expected.get(v).equals(actual.get(v))) {
+				if(mismatches++ < 10) System.out.println("Mismatch for " + v + ": " + expected.get(v) + " vs " + actual.get(v));
+			}
+		}
+		System.out.println(all.size() + " sources, " + mismatches + " mismatches");
+		System.out.println(String.format("bfs + averageSeparation: %.2fs (%.0f sources/sec)", bfsSeconds, all.size() / bfsSeconds));
+		System.out.println(String.format("MS-BFS (%d threads): %.2fs (%.0f sources/sec), plus %.3fs to index", threads, msSeconds, all.size() / msSeconds, indexSeconds));
+	}
+
+}
@@ -0,0 +1,396 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-only actor graph stored in a memory-mapped file instead of on the heap, for
+ * casts too big for AdjacencyMapGraph's HashMaps. Everything lives in the file:
+ * adjacency offsets and targets, a label id per edge, the movie ids for each label,
+ * the actor names and movie titles as UTF-8, and an open-addressing hash table from
+ * names to vertex numbers. The OS pages it in and out as needed and the garbage
+ * collector never sees it.
+ *
+ * It implements Graph so the UI and BaconGraphLib work on it unchanged (decoding names
+ * as they are asked for); BaconGraphLib.bfsDistances searches it by vertex number with
+ * no allocation at all. Edges are assumed undirected, as in the actor graph, so in- and
+ * out-neighbors are the same.
+ *
+ * Files are written either from a heap graph by write() or, for data too big to build
+ * on the heap, straight from the data files by OffHeapGraphBuilder.
+ *
+ * File layout (big-endian, each section padded to 8 bytes):
+ *   header			magic, n, then counts of edges, labels, label entries, movies, name bytes, title bytes, hash slots
+ *   offsets		long[n+1]		edges of vertex i are [offsets[i], offsets[i+1])
+ *   targets		int[E]			sorted within each vertex
+ *   edgeLabels		int[E]			label id of each edge, shared by both directions
+ *   labelOffsets	long[L+1]		movies of label l are [labelOffsets[l], labelOffsets[l+1])
+ *   labelMovies	int[M]
+ *   nameOffsets	long[n+1], nameBytes
+ *   titleOffsets	long[T+1], titleBytes
+ *   hash			int[H]			vertex+1 at slot (name.hashCode() mod H, probing linearly), 0 if empty
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class OffHeapGraph implements Graph<String, Set<String>> {
+	static final int MAGIC = 0x4F484731;		// "OHG1"
+	static final int HEADER = 8 + 7 * 8;
+	private static final int CHUNK_BITS = 30;			// map in 1GB chunks (a single mapping is limited to 2GB)
+	private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+	private MappedByteBuffer[] chunks;
+	private int n;
+	private long edges, labels, entries, movies, hashSlots;
+	private long offsetsAt, targetsAt, edgeLabelsAt, labelOffsetsAt, labelMoviesAt, nameOffsetsAt, nameBytesAt, titleOffsetsAt, titleBytesAt, hashAt;
+
+	/**
+	 * Maps a file written by write()
+	 *
+	 * @param file		file to map
+	 * @throws IOException		if the file can't be mapped or isn't a graph file
+	 */
+	public OffHeapGraph(String file) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			long size = channel.size();
+			chunks = new MappedByteBuffer[(int)((size + CHUNK_MASK) >>> CHUNK_BITS)];
+			for(int c = 0; c < chunks.length; c++) {
+				long start = (long)c << CHUNK_BITS;
+				chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(1L << CHUNK_BITS, size - start));
+			}
+		}
+		if(chunks.length == 0 || getInt(0) != MAGIC) throw new IOException(file + " is not an off-heap graph file");
+		n = getInt(4);
+		edges = getLong(8);
+		labels = getLong(16);
+		entries = getLong(24);
+		movies = getLong(32);
+		long nameBytes = getLong(40), titleBytes = getLong(48);
+		hashSlots = getLong(56);
+
+		long[] sizes = {8L * (n + 1), 4 * edges, 4 * edges, 8 * (labels + 1), 4 * entries,
+				8L * (n + 1), nameBytes, 8 * (movies + 1), titleBytes, 4 * hashSlots};
+		long[] at = sectionStarts(sizes);
+		offsetsAt = at[0]; targetsAt = at[1]; edgeLabelsAt = at[2]; labelOffsetsAt = at[3]; labelMoviesAt = at[4];
+		nameOffsetsAt = at[5]; nameBytesAt = at[6]; titleOffsetsAt = at[7]; titleBytesAt = at[8]; hashAt = at[9];
+	}
+
+	/**
+	 * Writes a graph (normally one built by BaconReader) to a file that can be mapped with the constructor.
+	 * Needs the whole graph on the heap; OffHeapGraphBuilder writes the same format straight from the data files.
+	 *
+	 * @param g			undirected graph to write
+	 * @param file		file to write
+	 * @throws IOException
+	 */
+	public static void write(Graph<String, Set<String>> g, String file) throws IOException {
+		int n = g.numVertices();
+		String[] names = new String[n];
+		Map<String, Integer> index = new HashMap<String, Integer>();
+		for(String v : g.vertices()) {
+			index.put(v, index.size());
+			names[index.size() - 1] = v;
+		}
+
+		// label ids: labels shared between edges (both directions, or MovieLabel singles) share an id
+		Map<Set<String>, Integer> labelIds = new IdentityHashMap<Set<String>, Integer>();
+		List<Set<String>> labelList = new ArrayList<Set<String>>();
+		Map<String, Integer> movieIds = new HashMap<String, Integer>();
+		List<String> titles = new ArrayList<String>();
+		long edges = 0, entries = 0;
+		for(String v : names) {
+			for(String u : g.outNeighbors(v)) {
+				edges++;
+				Set<String> label = g.getLabel(v, u);
+				if(!labelIds.containsKey(label)) {
+					labelIds.put(label, labelList.size());
+					labelList.add(label);
+					entries += label.size();
+					for(String title : label) {
+						if(!movieIds.containsKey(title)) {
+							movieIds.put(title, titles.size());
+							titles.add(title);
+						}
+					}
+				}
+			}
+		}
+
+		byte[][] nameUtf = utf8(Arrays.asList(names));
+		byte[][] titleUtf = utf8(titles);
+		long nameBytes = 0, titleBytes = 0;
+		for(byte[] b : nameUtf) nameBytes += b.length;
+		for(byte[] b : titleUtf) titleBytes += b.length;
+		long hashSlots = Long.highestOneBit(Math.max(1, 2L * n)) * 2;
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeInt(n);
+		for(long h : new long[] {edges, labelList.size(), entries, titles.size(), nameBytes, titleBytes, hashSlots}) out.writeLong(h);
+
+		// offsets and targets (sorted, so hasEdge can binary search)
+		long e = 0;
+		out.writeLong(e);
+		for(String v : names) out.writeLong(e += g.outDegree(v));
+		int[][] sorted = new int[n][];
+		for(int i = 0; i < n; i++) {
+			sorted[i] = new int[g.outDegree(names[i])];
+			int k = 0;
+			for(String u : g.outNeighbors(names[i])) sorted[i][k++] = index.get(u);
+			Arrays.sort(sorted[i]);
+			for(int t : sorted[i]) out.writeInt(t);
+		}
+		pad(out, 4 * edges);
+		for(int i = 0; i < n; i++) {
+			for(int t : sorted[i]) out.writeInt(labelIds.get(g.getLabel(names[i], names[t])));
+		}
+		pad(out, 4 * edges);
+
+		long m = 0;
+		out.writeLong(m);
+		for(Set<String> label : labelList) out.writeLong(m += label.size());
+		for(Set<String> label : labelList) {
+			for(String title : label) out.writeInt(movieIds.get(title));
+		}
+		pad(out, 4 * entries);
+
+		writeStrings(out, nameUtf);
+		writeStrings(out, titleUtf);
+
+		int[] hash = new int[(int)hashSlots];
+		for(int i = 0; i < n; i++) {
+			int slot = (int)(names[i].hashCode() & (hashSlots - 1));
+			while(hash[slot] != 0) slot = (int)((slot + 1) & (hashSlots - 1));
+			hash[slot] = i + 1;
+		}
+		for(int h : hash) out.writeInt(h);
+		out.close();
+	}
+
+	private static byte[][] utf8(List<String> strings) {
+		byte[][] bytes = new byte[strings.size()][];
+		for(int i = 0; i < bytes.length; i++) bytes[i] = strings.get(i) == null ? new byte[0] : strings.get(i).getBytes(StandardCharsets.UTF_8);
+		return bytes;
+	}
+
+	private static void writeStrings(DataOutputStream out, byte[][] strings) throws IOException {
+		long at = 0, total = 0;
+		out.writeLong(at);
+		for(byte[] b : strings) out.writeLong(at += b.length);
+		for(byte[] b : strings) {
+			out.write(b);
+			total += b.length;
+		}
+		pad(out, total);
+	}
+
+	static void pad(DataOutputStream out, long written) throws IOException {
+		for(long i = written; i % 8 != 0; i++) out.writeByte(0);
+	}
+
+	/** Start of each section, given their sizes, with the same padding as write() */
+	private static long[] sectionStarts(long[] sizes) {
+		long[] at = new long[sizes.length];
+		long pos = HEADER;
+		for(int i = 0; i < sizes.length; i++) {
+			at[i] = pos;
+			pos += (sizes[i] + 7) & ~7L;
+		}
+		return at;
+	}
+
+	private int getInt(long pos) {
+		return chunks[(int)(pos >>> CHUNK_BITS)].getInt((int)(pos & CHUNK_MASK));
+	}
+
+	private long getLong(long pos) {
+		return chunks[(int)(pos >>> CHUNK_BITS)].getLong((int)(pos & CHUNK_MASK));
+	}
+
+	private byte getByte(long pos) {
+		return chunks[(int)(pos >>> CHUNK_BITS)].get((int)(pos & CHUNK_MASK));
+	}
+
+	private String string(long offsetsAt, long bytesAt, long i) {
+		long from = getLong(offsetsAt + 8 * i), to = getLong(offsetsAt + 8 * (i + 1));
+		byte[] b = new byte[(int)(to - from)];
+		for(int k = 0; k < b.length; k++) b[k] = getByte(bytesAt + from + k);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	// ---- access by vertex number, for allocation-free traversal ----
+
+	/** Vertex number of an actor, -1 if not in the graph */
+	public int indexOf(String name) {
+		byte[] want = name.getBytes(StandardCharsets.UTF_8);
+		long slot = name.hashCode() & (hashSlots - 1);
+		while(true) {
+			int v = getInt(hashAt + 4 * slot) - 1;
+			if(v < 0) return -1;
+			long from = getLong(nameOffsetsAt + 8L * v), to = getLong(nameOffsetsAt + 8L * (v + 1));
+			if(to - from == want.length) {
+				int k = 0;
+				while(k < want.length && getByte(nameBytesAt + from + k) == want[k]) k++;
+				if(k == want.length) return v;
+			}
+			slot = (slot + 1) & (hashSlots - 1);
+		}
+	}
+
+	/** Name of the actor with the given vertex number */
+	public String name(int v) {
+		return string(nameOffsetsAt, nameBytesAt, v);
+	}
+
+	/** Position of vertex v's first edge; its last is at edgeStart(v+1)-1 */
+	public long edgeStart(int v) {
+		return getLong(offsetsAt + 8L * v);
+	}
+
+	/** Vertex number at the far end of edge e */
+	public int target(long e) {
+		return getInt(targetsAt + 4 * e);
+	}
+
+	/** Number of edges of the vertex with the given number */
+	public int degree(int v) {
+		return (int)(edgeStart(v + 1) - edgeStart(v));
+	}
+
+	// ---- Graph ----
+
+	public int numVertices() {
+		return n;
+	}
+
+	public int numEdges() {
+		return (int)Math.min(Integer.MAX_VALUE, edges);
+	}
+
+	public Iterable<String> vertices() {
+		return () -> new Iterator<String>() {
+			private int v = 0;
+
+			public boolean hasNext() {
+				return v < n;
+			}
+
+			public String next() {
+				if(v >= n) throw new NoSuchElementException();
+				return name(v++);
+			}
+		};
+	}
+
+	public boolean hasVertex(String v) {
+		return indexOf(v) >= 0;
+	}
+
+	public int outDegree(String v) {
+		return degree(vertex(v));
+	}
+
+	public int inDegree(String v) {
+		return outDegree(v);
+	}
+
+	public Iterable<String> outNeighbors(String v) {
+		int u = vertex(v);
+		long from = edgeStart(u), to = edgeStart(u + 1);
+		return () -> new Iterator<String>() {
+			private long e = from;
+
+			public boolean hasNext() {
+				return e < to;
+			}
+
+			public String next() {
+				if(e >= to) throw new NoSuchElementException();
+				return name(target(e++));
+			}
+		};
+	}
+
+	public Iterable<String> inNeighbors(String v) {
+		return outNeighbors(v);
+	}
+
+	public boolean hasEdge(String u, String v) {
+		return edge(vertex(u), indexOf(v)) >= 0;
+	}
+
+	public Set<String> getLabel(String u, String v) {
+		long e = edge(vertex(u), indexOf(v));
+		if(e < 0) return null;
+		int label = getInt(edgeLabelsAt + 4 * e);
+		long from = getLong(labelOffsetsAt + 8L * label), to = getLong(labelOffsetsAt + 8L * (label + 1));
+		return new AbstractSet<String>() {		// titles decoded only when iterated
+			public int size() {
+				return (int)(to - from);
+			}
+
+			public Iterator<String> iterator() {
+				return new Iterator<String>() {
+					private long i = from;
+
+					public boolean hasNext() {
+						return i < to;
+					}
+
+					public String next() {
+						if(i >= to) throw new NoSuchElementException();
+						return string(titleOffsetsAt, titleBytesAt, getInt(labelMoviesAt + 4 * i++));
+					}
+				};
+			}
+		};
+	}
+
+	public void insertVertex(String v) {
+		throw new UnsupportedOperationException("OffHeapGraph is read-only");
+	}
+
+	public void insertDirected(String u, String v, Set<String> e) {
+		throw new UnsupportedOperationException("OffHeapGraph is read-only");
+	}
+
+	public void insertUndirected(String u, String v, Set<String> e) {
+		throw new UnsupportedOperationException("OffHeapGraph is read-only");
+	}
+
+	public void removeVertex(String v) {
+		throw new UnsupportedOperationException("OffHeapGraph is read-only");
+	}
+
+	public void removeDirected(String u, String v) {
+		throw new UnsupportedOperationException("OffHeapGraph is read-only");
+	}
+
+	public void removeUndirected(String u, String v) {
+		throw new UnsupportedOperationException("OffHeapGraph is read-only");
+	}
+
+	/** Vertex number of an actor that must be in the graph, as AdjacencyMapGraph would fail on a missing one */
+	private int vertex(String v) {
+		int i = indexOf(v);
+		if(i < 0) throw new NoSuchElementException("Actor not in graph: " + v);
+		return i;
+	}
+
+	/** Position of the edge u-v, by binary search of u's sorted targets, or -1 */
+	private long edge(int u, int v) {
+		if(v < 0) return -1;
+		long lo = edgeStart(u), hi = edgeStart(u + 1) - 1;
+		while(lo <= hi) {
+			long mid = (lo + hi) >>> 1;
+			int t = target(mid);
+			if(t == v) return mid;
+			if(t < v) lo = mid + 1;
+			else hi = mid - 1;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,417 @@
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Writes an OffHeapGraph file straight from the actor, movie and cast files, without
+ * building the graph (or BaconReader's maps) on the heap, so data too big for
+ * AdjacencyMapGraph can still be searched. The graph is the same one buildGraph makes:
+ * an actor per line of the actors file, an edge between every two actors in a cast,
+ * labelled with their shared movies; cast rows for unknown actors are skipped, and
+ * movies missing from the movies file get an empty title.
+ *
+ * Cast rows are put in movie order and in actor order with an external sort (sorted
+ * runs on disk, then merged), giving each movie's cast and each actor's movies as int
+ * files that are mapped rather than read in. Each actor's edges are then produced in
+ * turn from their movies' casts. Sections go to temporary files next to the output and
+ * are joined behind the header at the end. The heap holds a few ints per actor and per
+ * movie and one actor's co-star list, never anything per edge or per cast row.
+ *
+ * Ids must be integers, as in the bundled and generated data, and actor ids and names
+ * must be unique (buildGraph would merge two actors with the same name; this throws).
+ * Edges sharing one movie use that movie's label, as MovieTable.single does; edges
+ * sharing several get a label per direction.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class OffHeapGraphBuilder {
+	private static final int SORT_RUN = 1 << 22;		// longs sorted in memory at a time (32MB)
+
+	private File tmp;
+
+	private OffHeapGraphBuilder(File tmp) {
+		this.tmp = tmp;
+	}
+
+	/**
+	 * Builds the graph file
+	 *
+	 * @param actorsFile	id|name lines
+	 * @param moviesFile	id|title lines
+	 * @param castsFile		movie id|actor id lines
+	 * @param outFile		graph file to write, for new OffHeapGraph(outFile)
+	 * @throws IOException		if a file can't be read or written, or the data breaks the rules above
+	 */
+	public static void build(String actorsFile, String moviesFile, String castsFile, String outFile) throws IOException {
+		File dir = new File(outFile).getAbsoluteFile().getParentFile();
+		File tmp = Files.createTempDirectory(dir.toPath(), "offheap").toFile();
+		try {
+			new OffHeapGraphBuilder(tmp).run(actorsFile, moviesFile, castsFile, outFile);
+		} finally {
+			for(File f : tmp.listFiles()) f.delete();
+			tmp.delete();
+		}
+	}
+
+	private void run(String actorsFile, String moviesFile, String castsFile, String outFile) throws IOException {
+		// actors: names to the name sections, ids to a sorted id -> vertex table
+		LongList nameOffsets = new LongList();
+		LongList actorKeys = new LongList();		// id << 32 | vertex
+		IntList hashCodes = new IntList();
+		long nameBytes = strings(actorsFile, "names", nameOffsets, actorKeys, hashCodes);
+		int n = actorKeys.size();
+		int[] actorIds = new int[n], actorVertex = new int[n];
+		split(actorKeys, actorIds, actorVertex, "actor", actorsFile);
+		actorKeys = null;
+
+		// movies: titles to the title sections, ids to a sorted id -> movie number table
+		LongList titleOffsets = new LongList();
+		LongList movieKeys = new LongList();
+		long titleBytes = strings(moviesFile, "titles", titleOffsets, movieKeys, null);
+		int[] movieIds = new int[movieKeys.size()], movieNumber = new int[movieKeys.size()];
+		split(movieKeys, movieIds, movieNumber, "movie", moviesFile);
+		movieKeys = null;
+
+		// cast rows as movie << 32 | vertex, skipping unknown actors; unknown movies get new numbers
+		Map<Integer, Integer> unknownMovies = new HashMap<Integer, Integer>();
+		long rows = 0;
+		try (BufferedReader in = new BufferedReader(new FileReader(castsFile), 1 << 16);
+				DataOutputStream out = output("casts")) {
+			String line;
+			while((line = in.readLine()) != null) {
+				if(line.isEmpty()) continue;
+				int bar = line.indexOf('|');
+				int a = Arrays.binarySearch(actorIds, id(field(line, bar + 1), castsFile));
+				if(a < 0) continue;
+				int movieId = id(line.substring(0, bar), castsFile);
+				int m = Arrays.binarySearch(movieIds, movieId);
+				int movie = m >= 0 ? movieNumber[m] : unknownMovies.computeIfAbsent(movieId, k -> titleOffsets.size() - 1 + unknownMovies.size());
+				out.writeLong((long)movie << 32 | actorVertex[a]);
+				rows++;
+			}
+		}
+		for(int i = 0; i < unknownMovies.size(); i++) titleOffsets.add(titleBytes);
+		int movies = titleOffsets.size() - 1;
+		actorIds = null;
+		actorVertex = null;
+		movieIds = null;
+		movieNumber = null;
+
+		// each movie's cast, and each actor's movies, as offsets on the heap and ints in mapped files
+		long[] castStart = new long[movies + 1];
+		sort("casts", rows, "castsByMovie");
+		rows = group("castsByMovie", rows, castStart, "castMembers", "castsByActor");
+		long[] movieStart = new long[n + 1];
+		sort("castsByActor", rows, "byActor");
+		group("byActor", rows, movieStart, "actorMovies", null);
+		file("castsByMovie").delete();
+		file("byActor").delete();
+
+		// edges, in vertex order with sorted targets
+		long edges = 0, multiLabels = 0, multiEntries = 0;
+		try (MappedInts cast = new MappedInts(file("castMembers")); MappedInts actorMovies = new MappedInts(file("actorMovies"));
+				DataOutputStream offsets = output("offsets"); DataOutputStream targets = output("targets");
+				DataOutputStream edgeLabels = output("edgeLabels"); DataOutputStream labelOffsets = output("labelOffsets");
+				DataOutputStream labelMovies = output("labelMovies")) {
+			LongList costars = new LongList();		// costar << 32 | movie, for the current actor
+			offsets.writeLong(0);
+			for(int u = 0; u < n; u++) {
+				costars.clear();
+				for(long i = movieStart[u]; i < movieStart[u+1]; i++) {
+					int m = actorMovies.get(i);
+					for(long j = castStart[m]; j < castStart[m+1]; j++) {
+						int v = cast.get(j);
+						if(v != u) costars.add((long)v << 32 | m);
+					}
+				}
+				costars.sort();
+				for(int i = 0; i < costars.size(); ) {
+					int v = (int)(costars.get(i) >>> 32);
+					int end = i + 1;
+					while(end < costars.size() && (int)(costars.get(end) >>> 32) == v) end++;
+					targets.writeInt(v);
+					if(end - i == 1) edgeLabels.writeInt((int)costars.get(i));		// the movie's own label
+					else {
+						edgeLabels.writeInt(movies + (int)multiLabels++);
+						for(int k = i; k < end; k++) labelMovies.writeInt((int)costars.get(k));
+						multiEntries += end - i;
+						labelOffsets.writeLong(movies + multiEntries);
+					}
+					edges++;
+					i = end;
+				}
+				offsets.writeLong(edges);
+			}
+		}
+
+		// hash table from name to vertex, as write() makes it
+		long hashSlots = Long.highestOneBit(Math.max(1, 2L * n)) * 2;
+		int[] hash = new int[(int)hashSlots];
+		try (RandomAccessFile names = new RandomAccessFile(file("names"), "r")) {
+			for(int v = 0; v < n; v++) {
+				int slot = (int)(hashCodes.get(v) & (hashSlots - 1));
+				while(hash[slot] != 0) {
+					int w = hash[slot] - 1;
+					if(hashCodes.get(w) == hashCodes.get(v) && name(names, nameOffsets, w).equals(name(names, nameOffsets, v))) {
+						throw new IOException("Actor name appears twice in " + actorsFile + ": " + name(names, nameOffsets, v));
+					}
+					slot = (int)((slot + 1) & (hashSlots - 1));
+				}
+				hash[slot] = v + 1;
+			}
+		}
+
+		// header, then the sections in the order OffHeapGraph reads them
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile), 1 << 16))) {
+			out.writeInt(OffHeapGraph.MAGIC);
+			out.writeInt(n);
+			for(long h : new long[] {edges, movies + multiLabels, movies + multiEntries, movies, nameBytes, titleBytes, hashSlots}) out.writeLong(h);
+			copy("offsets", out, 8L * (n + 1));
+			copy("targets", out, 4 * edges);
+			OffHeapGraph.pad(out, 4 * edges);
+			copy("edgeLabels", out, 4 * edges);
+			OffHeapGraph.pad(out, 4 * edges);
+			for(int m = 0; m <= movies; m++) out.writeLong(m);		// labels 0..movies-1 are the single movies
+			copy("labelOffsets", out, 8 * multiLabels);
+			for(int m = 0; m < movies; m++) out.writeInt(m);
+			copy("labelMovies", out, 4 * multiEntries);
+			OffHeapGraph.pad(out, 4 * (movies + multiEntries));
+			for(int i = 0; i < nameOffsets.size(); i++) out.writeLong(nameOffsets.get(i));
+			copy("names", out, nameBytes);
+			OffHeapGraph.pad(out, nameBytes);
+			for(int i = 0; i < titleOffsets.size(); i++) out.writeLong(titleOffsets.get(i));
+			copy("titles", out, titleBytes);
+			OffHeapGraph.pad(out, titleBytes);
+			for(int h : hash) out.writeInt(h);
+		}
+	}
+
+	/**
+	 * Reads an id|name file: names as UTF-8 to a temporary file, their end offsets to offsets
+	 * (which starts with 0), and id << 32 | line number to keys
+	 *
+	 * @return		total bytes of names
+	 */
+	private long strings(String file, String bytesFile, LongList offsets, LongList keys, IntList hashCodes) throws IOException {
+		long bytes = 0;
+		offsets.add(0);
+		try (BufferedReader in = new BufferedReader(new FileReader(file), 1 << 16); DataOutputStream out = output(bytesFile)) {
+			String line;
+			while((line = in.readLine()) != null) {
+				if(line.isEmpty()) continue;
+				int bar = line.indexOf('|');
+				String name = field(line, bar + 1);
+				byte[] utf = name.getBytes(StandardCharsets.UTF_8);
+				out.write(utf);
+				offsets.add(bytes += utf.length);
+				keys.add((long)id(line.substring(0, bar), file) << 32 | keys.size());
+				if(hashCodes != null) hashCodes.add(name.hashCode());
+			}
+		}
+		return bytes;
+	}
+
+	/** Sorts id << 32 | number keys into parallel sorted ids and numbers */
+	private static void split(LongList keys, int[] ids, int[] numbers, String what, String file) throws IOException {
+		keys.sort();
+		for(int i = 0; i < ids.length; i++) {
+			ids[i] = (int)(keys.get(i) >>> 32);
+			numbers[i] = (int)keys.get(i);
+			if(i > 0 && ids[i] == ids[i-1]) throw new IOException("Duplicate " + what + " id " + ids[i] + " in " + file);
+		}
+	}
+
+	/** The text from start up to the next '|' or the end, as BaconReader's split takes it */
+	private static String field(String line, int start) {
+		int bar = line.indexOf('|', start);
+		return bar < 0 ? line.substring(start) : line.substring(start, bar);
+	}
+
+	private static int id(String s, String file) throws IOException {
+		try {
+			int id = Integer.parseInt(s);
+			if(id < 0) throw new NumberFormatException();
+			return id;
+		} catch (NumberFormatException e) {
+			throw new IOException("Id is not a non-negative integer in " + file + ": " + s);
+		}
+	}
+
+	private static String name(RandomAccessFile names, LongList offsets, int v) throws IOException {
+		byte[] b = new byte[(int)(offsets.get(v + 1) - offsets.get(v))];
+		names.seek(offsets.get(v));
+		names.readFully(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Goes through sorted high << 32 | low records, skipping repeats: for each high key
+	 * writes its lows to an int file and their end offset to starts, and optionally writes
+	 * each record swapped (low << 32 | high) to another file
+	 *
+	 * @return		number of distinct records
+	 */
+	private long group(String in, long count, long[] starts, String members, String swapped) throws IOException {
+		try (DataInputStream records = input(in); DataOutputStream out = output(members);
+				DataOutputStream swap = swapped == null ? null : output(swapped)) {
+			long previous = -1, written = 0;
+			int high = 0;
+			for(long i = 0; i < count; i++) {
+				long r = records.readLong();
+				if(r == previous) continue;
+				previous = r;
+				int h = (int)(r >>> 32), low = (int)r;
+				while(high < h) starts[++high] = written;
+				out.writeInt(low);
+				written++;
+				if(swap != null) swap.writeLong((long)low << 32 | h);
+			}
+			while(high < starts.length - 1) starts[++high] = written;
+			return written;
+		}
+	}
+
+	/**
+	 * External sort of a file of count longs: sorted runs of SORT_RUN, then a merge
+	 */
+	private void sort(String in, long count, String out) throws IOException {
+		List<String> runs = new ArrayList<String>();
+		long[] buffer = new long[(int)Math.min(SORT_RUN, Math.max(1, count))];
+		try (DataInputStream records = input(in)) {
+			for(long done = 0; done < count; ) {
+				int size = (int)Math.min(buffer.length, count - done);
+				for(int i = 0; i < size; i++) buffer[i] = records.readLong();
+				Arrays.sort(buffer, 0, size);
+				String run = out + ".run" + runs.size();
+				try (DataOutputStream w = output(run)) {
+					for(int i = 0; i < size; i++) w.writeLong(buffer[i]);
+				}
+				runs.add(run);
+				done += size;
+			}
+		}
+		buffer = null;
+		file(in).delete();
+
+		DataInputStream[] readers = new DataInputStream[runs.size()];
+		long[] left = new long[runs.size()], head = new long[runs.size()];
+		PriorityQueue<Integer> next = new PriorityQueue<Integer>(Math.max(1, runs.size()), (a, b) -> Long.compare(head[a], head[b]));
+		try (DataOutputStream w = output(out)) {
+			for(int r = 0; r < runs.size(); r++) {
+				readers[r] = input(runs.get(r));
+				left[r] = Math.min(SORT_RUN, count - (long)r * SORT_RUN);
+				head[r] = readers[r].readLong();
+				left[r]--;
+				next.add(r);
+			}
+			while(!next.isEmpty()) {
+				int r = next.poll();
+				w.writeLong(head[r]);
+				if(left[r] > 0) {
+					head[r] = readers[r].readLong();
+					left[r]--;
+					next.add(r);
+				}
+			}
+		} finally {
+			for(int r = 0; r < readers.length; r++) {
+				if(readers[r] != null) readers[r].close();
+				file(runs.get(r)).delete();
+			}
+		}
+	}
+
+	/** Appends a temporary file of the given size to the output */
+	private void copy(String name, DataOutputStream out, long bytes) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file(name)), 1 << 16)) {
+			if(in.transferTo(out) != bytes) throw new IOException("Section " + name + " has the wrong size");
+		}
+		file(name).delete();
+	}
+
+	private File file(String name) {
+		return new File(tmp, name);
+	}
+
+	private DataOutputStream output(String name) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file(name)), 1 << 16));
+	}
+
+	private DataInputStream input(String name) throws IOException {
+		return new DataInputStream(new BufferedInputStream(new FileInputStream(file(name)), 1 << 16));
+	}
+
+	/**
+	 * Read-only ints from a file written by DataOutputStream, mapped in 1GB chunks
+	 */
+	private static class MappedInts implements Closeable {
+		private static final int CHUNK_INTS = 1 << 28;
+		private MappedByteBuffer[] chunks;
+
+		MappedInts(File file) throws IOException {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				long size = channel.size();
+				chunks = new MappedByteBuffer[(int)((size + 4L * CHUNK_INTS - 1) / (4L * CHUNK_INTS))];
+				for(int c = 0; c < chunks.length; c++) {
+					long start = 4L * CHUNK_INTS * c;
+					chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(4L * CHUNK_INTS, size - start));
+				}
+			}
+		}
+
+		int get(long i) {
+			return chunks[(int)(i / CHUNK_INTS)].getInt((int)(i % CHUNK_INTS) * 4);
+		}
+
+		public void close() {
+			chunks = null;		// unmapped when collected
+		}
+	}
+
+	/** Growable long array */
+	private static class LongList {
+		private long[] values = new long[16];
+		private int size = 0;
+
+		void add(long v) {
+			if(size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = v;
+		}
+
+		long get(int i) {
+			return values[i];
+		}
+
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		void sort() {
+			Arrays.sort(values, 0, size);
+		}
+	}
+
+	/** Growable int array */
+	private static class IntList {
+		private int[] values = new int[16];
+		private int size = 0;
+
+		void add(int v) {
+			if(size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = v;
+		}
+
+		int get(int i) {
+			return values[i];
+		}
+	}
+}
@@ -0,0 +1,195 @@
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+
+/**
+ * Tester for OffHeapGraph. Builds a synthetic graph several times the size of the
+ * bundled data (copies of it, with one movie in ten also casting an actor from the
+ * next copy so the copies connect), and either writes it to an off-heap file and
+ * checks the file against the heap graph, or times bfs on one representation so the
+ * two can be compared in separate JVMs with GC logging on:
+ *
+ *   OffHeapGraphTester write <copies> <file>
+ *   OffHeapGraphTester build <actors> <movies> <casts> <file> [check]
+ *   java -Xlog:gc:heap.log OffHeapGraphTester heap <copies> <searches>
+ *   java -Xlog:gc:offheap.log OffHeapGraphTester offheap <file> <searches>
+ *
+ * build writes the file with OffHeapGraphBuilder straight from data files, which works
+ * for data too big to build on the heap; with check it also builds the heap graph from
+ * the same files and compares the two.
+ *
+ * Uses the same -Dbacon.* data file properties as BaconDriver for the data that is copied.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class OffHeapGraphTester {
+
+	public static void main(String[] args) throws Exception {
+		Random random = new Random(42);
+
+		if(args.length >= 3 && args[0].equals("write")) {
+			Graph<String, Set<String>> graph = synthetic(Integer.parseInt(args[1]));
+			long start = System.nanoTime();
+			OffHeapGraph.write(graph, args[2]);
+			System.out.println(String.format("wrote %d actors, %d edges to %s (%d bytes) in %.2fs", graph.numVertices(), graph.numEdges(),
+					args[2], new File(args[2]).length(), (System.nanoTime() - start) / 1e9));
+			check(graph, new OffHeapGraph(args[2]), random);
+		}
+		else if(args.length >= 5 && args[0].equals("build")) {
+			long start = System.nanoTime();
+			OffHeapGraphBuilder.build(args[1], args[2], args[3], args[4]);
+			OffHeapGraph graph = new OffHeapGraph(args[4]);
+			long peak = 0;
+			for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if(pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+			}
+			System.out.println(String.format("built %d actors, %d edges to %s (%d bytes) in %.2fs, peak heap %.0fMB", graph.numVertices(),
+					graph.numEdges(), args[4], new File(args[4]).length(), (System.nanoTime() - start) / 1e9, peak / 1e6));
+			if(args.length > 5 && args[5].equals("check")) {
+				BaconReader reader = new BaconReader();
+				check(reader.buildGraph(reader.read(args[1]), reader.read(args[2]), reader.idRead(args[3])), graph, random);
+			}
+		}
+		else if(args.length >= 3 && args[0].equals("heap")) {
+			Graph<String, Set<String>> graph = synthetic(Integer.parseInt(args[1]));
+			List<String> actors = new ArrayList<String>();
+			for(String v : graph.vertices()) actors.add(v);
+			System.gc();
+			report("loaded heap graph", graph.numVertices(), graph.numEdges());
+			int searches = Integer.parseInt(args[2]);
+			long[] gc = gc();
+			long start = System.nanoTime(), reached = 0;
+			for(int i = 0; i < searches; i++) {
+				reached += BaconGraphLib.bfs(graph, actors.get(random.nextInt(actors.size()))).numVertices();
+			}
+			timing("BaconGraphLib.bfs on AdjacencyMapGraph", searches, start, reached, gc);
+
+			// the same int-array search as bfsDistances, but over an on-heap IndexedGraph
+			IndexedGraph<String> indexed = new IndexedGraph<String>(graph);
+			gc = gc();
+			start = System.nanoTime();
+			reached = 0;
+			for(int i = 0; i < searches; i++) {
+				for(int d : indexed.distances(random.nextInt(indexed.numVertices()))) if(d >= 0) reached++;
+			}
+			timing("IndexedGraph.distances on heap", searches, start, reached, gc);
+		}
+		else if(args.length >= 3 && args[0].equals("offheap")) {
+			OffHeapGraph graph = new OffHeapGraph(args[1]);
+			System.gc();
+			report("mapped off-heap graph", graph.numVertices(), graph.numEdges());
+			int searches = Integer.parseInt(args[2]);
+			int[] dist = new int[graph.numVertices()], queue = new int[graph.numVertices()];
+			long[] gc = gc();
+			long start = System.nanoTime(), reached = 0;
+			for(int i = 0; i < searches; i++) {
+				reached += BaconGraphLib.bfsDistances(graph, random.nextInt(graph.numVertices()), dist, queue);
+			}
+			timing("BaconGraphLib.bfsDistances on OffHeapGraph", searches, start, reached, gc);
+
+			// the generic bfs also works on it, through the Graph interface
+			gc = gc();
+			start = System.nanoTime();
+			reached = 0;
+			for(int i = 0; i < Math.min(searches, 5); i++) {
+				reached += BaconGraphLib.bfs(graph, graph.name(random.nextInt(graph.numVertices()))).numVertices();
+			}
+			timing("BaconGraphLib.bfs on OffHeapGraph", Math.min(searches, 5), start, reached, gc);
+		}
+		else {
+			System.out.println("Usage: OffHeapGraphTester write <copies> <file> | build <actors> <movies> <casts> <file> [check]"
+					+ " | heap <copies> <searches> | offheap <file> <searches>");
+		}
+	}
+
+	/**
+	 * Copies of the configured data set, linked into one graph
+	 */
+	private static Graph<String, Set<String>> synthetic(int copies) throws Exception {
+		BaconReader reader = new BaconReader();
+		Map<String, String> actors = reader.read(System.getProperty("bacon.actors", "actorsTest.txt"));
+		Map<String, String> movies = reader.read(System.getProperty("bacon.movies", "moviesTest.txt"));
+		Map<String, ArrayList<String>> movieActor = reader.idRead(System.getProperty("bacon.movieActors", "movie-actorsTest.txt"));
+		List<String> actorIDs = new ArrayList<String>(actors.keySet());
+		Collections.sort(actorIDs);
+		List<String> movieIDs = new ArrayList<String>(movieActor.keySet());
+		Collections.sort(movieIDs);
+		Random random = new Random(7);
+
+		Map<String, String> allActors = new HashMap<String, String>();
+		Map<String, String> allMovies = new HashMap<String, String>();
+		Map<String, ArrayList<String>> allCasts = new HashMap<String, ArrayList<String>>();
+		for(int c = 0; c < copies; c++) {
+			for(String id : actorIDs) allActors.put(c + ":" + id, actors.get(id) + " #" + c);
+			for(String id : movies.keySet()) allMovies.put(c + ":" + id, movies.get(id) + " #" + c);
+			for(String id : movieIDs) {
+				ArrayList<String> cast = new ArrayList<String>();
+				for(String a : movieActor.get(id)) cast.add(c + ":" + a);
+				if(copies > 1 && random.nextInt(10) == 0) cast.add((c + 1) % copies + ":" + actorIDs.get(random.nextInt(actorIDs.size())));
+				allCasts.put(c + ":" + id, cast);
+			}
+		}
+		return reader.buildGraph(allActors, allMovies, allCasts);
+	}
+
+	/**
+	 * Compares the mapped file with the heap graph: vertices, degrees, labels on sampled
+	 * edges, and bfs distances from sampled sources
+	 */
+	private static void check(Graph<String, Set<String>> heap, OffHeapGraph off, Random random) {
+		int wrong = 0;
+		if(heap.numVertices() != off.numVertices() || heap.numEdges() != off.numEdges()) wrong++;
+		List<String> actors = new ArrayList<String>();
+		for(String v : heap.vertices()) {
+			actors.add(v);
+			if(!off.hasVertex(v) || off.outDegree(v) != heap.outDegree(v)) wrong++;
+		}
+		for(int i = 0; i < 1000; i++) {
+			String u = actors.get(random.nextInt(actors.size()));
+			for(String v : heap.outNeighbors(u)) {
+				if(!off.hasEdge(u, v) || !off.getLabel(u, v).equals(heap.getLabel(u, v))) wrong++;
+			}
+		}
+		IndexedGraph<String> indexed = new IndexedGraph<String>(heap);
+		int[] dist = new int[off.numVertices()], queue = new int[off.numVertices()];
+		for(int i = 0; i < 20; i++) {
+			String source = actors.get(random.nextInt(actors.size()));
+			int[] expected = indexed.distances(indexed.indexOf(source));
+			BaconGraphLib.bfsDistances(off, off.indexOf(source), dist, queue);
+			for(int v = 0; v < dist.length; v++) {
+				if(dist[v] != expected[indexed.indexOf(off.name(v))]) wrong++;
+			}
+		}
+		System.out.println("checked off-heap graph against heap graph: " + wrong + " differences");
+	}
+
+	private static void report(String what, int vertices, int edges) {
+		Runtime rt = Runtime.getRuntime();
+		System.out.println(String.format("%s: %d actors, %d edges, heap used after GC %.1fMB", what, vertices, edges,
+				(rt.totalMemory() - rt.freeMemory()) / 1e6));
+	}
+
+	private static void timing(String what, int searches, long start, long reached, long[] gcBefore) {
+		double ms = (System.nanoTime() - start) / 1e6;
+		long[] gc = gc();
+		System.out.println(String.format("%s: %d searches in %.0fms (%.2fms each, %d vertices reached), %d GCs taking %dms",
+				what, searches, ms, ms / searches, reached, gc[0] - gcBefore[0], gc[1] - gcBefore[1]));
+	}
+
+	/**
+	 * Total {collections, milliseconds} over all collectors so far
+	 */
+	private static long[] gc() {
+		long[] total = new long[2];
+		for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			total[0] += Math.max(0, bean.getCollectionCount());
+			total[1] += Math.max(0, bean.getCollectionTime());
+		}
+		return total;
+	}
+
+}
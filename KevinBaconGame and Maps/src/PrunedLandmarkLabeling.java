@@ -0,0 +1,250 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Exact 2-hop cover index for pairwise Bacon numbers (pruned landmark labeling,
+ * Akiba et al.). Every actor gets a label: a list of (hub, distance) pairs such that
+ * for any two connected actors some hub on a shortest path between them is in both
+ * labels. The distance between two actors is then the best hub found by merging
+ * their two sorted labels, with no search at all.
+ *
+ * Labels are built by a bfs from every actor in decreasing degree order, pruning
+ * the search wherever the labels built so far already give a distance at least as
+ * short, so the well-connected actors end up as hubs for almost everyone and later
+ * searches stay tiny. Assumes the graph is undirected, as the actor graph is.
+ *
+ * The finished labels are stored flat: hubs (as ranks) and distances for vertex i are
+ * at positions offsets[i] .. offsets[i+1]-1, sorted by hub rank.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class PrunedLandmarkLabeling {
+	/** Returned by distance for a pair that isn't connected */
+	public static final int INFINITE = Integer.MAX_VALUE;
+
+	private static final int MAGIC = 0x504C4C31;		// "PLL1", at the start of saved files
+
+	private String[] names;					// vertex index -> actor
+	private Map<String, Integer> index;		// actor -> vertex index
+	private int[] offsets;					// n+1 entries
+	private int[] hubs;						// hub ranks, sorted within each vertex's label
+	private byte[] dists;					// distance to the matching hub, unsigned (read with & 0xFF)
+
+	/**
+	 * Builds the index for a graph
+	 *
+	 * @param g		indexed actor graph
+	 */
+	public PrunedLandmarkLabeling(IndexedGraph<String> g) {
+		int n = g.numVertices();
+		int[] gOffsets = g.offsets(), gTargets = g.targets();
+		names = new String[n];
+		index = new HashMap<String, Integer>();
+		for(int v = 0; v < n; v++) {
+			names[v] = g.vertex(v);
+			index.put(names[v], v);
+		}
+
+		// highest degree first: those actors cover the most shortest paths
+		Integer[] boxed = new Integer[n];
+		for(int v = 0; v < n; v++) boxed[v] = v;
+		Arrays.sort(boxed, (a, b) -> g.outDegree(a) != g.outDegree(b) ? g.outDegree(b) - g.outDegree(a) : a - b);
+
+		// growable labels while building
+		int[][] labelHubs = new int[n][];
+		byte[][] labelDists = new byte[n][];
+		int[] sizes = new int[n];
+		for(int v = 0; v < n; v++) {
+			labelHubs[v] = new int[2];
+			labelDists[v] = new byte[2];
+		}
+
+		int[] rootDist = new int[n];		// by hub rank: distance from the current root, INFINITE if not in its label
+		Arrays.fill(rootDist, INFINITE);
+		int[] dist = new int[n];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[n];
+
+		for(int rank = 0; rank < n; rank++) {
+			int root = boxed[rank];
+			for(int i = 0; i < sizes[root]; i++) rootDist[labelHubs[root][i]] = labelDists[root][i] & 0xFF;
+
+			int head = 0, tail = 0;
+			dist[root] = 0;
+			queue[tail++] = root;
+			while(head < tail) {
+				int u = queue[head++];
+				int d = dist[u];
+
+				// prune: the labels so far already give root-u a distance no longer than d
+				int known = INFINITE;
+				for(int i = 0; i < sizes[u]; i++) {
+					int h = rootDist[labelHubs[u][i]];
+					if(h != INFINITE) known = Math.min(known, h + (labelDists[u][i] & 0xFF));
+				}
+				if(known <= d) continue;
+
+				if(d > 254) throw new IllegalStateException("Distance " + d + " too large to store in a byte");
+				if(sizes[u] == labelHubs[u].length) {
+					labelHubs[u] = Arrays.copyOf(labelHubs[u], sizes[u] * 2);
+					labelDists[u] = Arrays.copyOf(labelDists[u], sizes[u] * 2);
+				}
+				labelHubs[u][sizes[u]] = rank;
+				labelDists[u][sizes[u]++] = (byte)d;
+
+				for(int e = gOffsets[u]; e < gOffsets[u+1]; e++) {
+					int w = gTargets[e];
+					if(dist[w] < 0) {
+						dist[w] = d + 1;
+						queue[tail++] = w;
+					}
+				}
+			}
+
+			for(int i = 0; i < tail; i++) dist[queue[i]] = -1;
+			for(int i = 0; i < sizes[root]; i++) rootDist[labelHubs[root][i]] = INFINITE;
+		}
+
+		offsets = new int[n + 1];
+		for(int v = 0; v < n; v++) offsets[v+1] = offsets[v] + sizes[v];
+		hubs = new int[offsets[n]];
+		dists = new byte[offsets[n]];
+		for(int v = 0; v < n; v++) {
+			System.arraycopy(labelHubs[v], 0, hubs, offsets[v], sizes[v]);
+			System.arraycopy(labelDists[v], 0, dists, offsets[v], sizes[v]);
+		}
+	}
+
+	/**
+	 * Constructor used by load()
+	 */
+	private PrunedLandmarkLabeling(String[] names, int[] offsets, int[] hubs, byte[] dists) {
+		this.names = names;
+		this.offsets = offsets;
+		this.hubs = hubs;
+		this.dists = dists;
+		index = new HashMap<String, Integer>();
+		for(int v = 0; v < names.length; v++) index.put(names[v], v);
+	}
+
+	/**
+	 * Distance between two vertices by index, merging their labels
+	 *
+	 * @param u		index of one vertex
+	 * @param v		index of the other
+	 * @return		hop distance, INFINITE if not connected
+	 */
+	public int distance(int u, int v) {
+		int best = INFINITE;
+		int i = offsets[u], iEnd = offsets[u+1], j = offsets[v], jEnd = offsets[v+1];
+		while(i < iEnd && j < jEnd) {
+			int hi = hubs[i], hj = hubs[j];
+			if(hi == hj) {
+				best = Math.min(best, (dists[i] & 0xFF) + (dists[j] & 0xFF));
+				i++; j++;
+			}
+			else if(hi < hj) i++;
+			else j++;
+		}
+		return best;
+	}
+
+	/**
+	 * Distance between two actors
+	 *
+	 * @param u		one actor
+	 * @param v		the other
+	 * @return		hop distance, INFINITE if not connected
+	 * @throws IllegalArgumentException		if either actor isn't in the index
+	 */
+	public int distance(String u, String v) {
+		Integer iu = index.get(u), iv = index.get(v);
+		if(iu == null || iv == null) throw new IllegalArgumentException("Actor not in index: " + (iu == null ? u : v));
+		return distance(iu, iv);
+	}
+
+	/** Index of an actor, -1 if not in the index */
+	public int indexOf(String actor) {
+		Integer i = index.get(actor);
+		return i == null ? -1 : i;
+	}
+
+	/** How many vertices are indexed */
+	public int numVertices() {
+		return names.length;
+	}
+
+	/** Total (hub, distance) entries over all labels */
+	public int numEntries() {
+		return hubs.length;
+	}
+
+	/** Bytes used by the label arrays (not counting the names) */
+	public long bytes() {
+		return 4L * offsets.length + 4L * hubs.length + dists.length;
+	}
+
+	/**
+	 * Writes the index to a file, with the actor names so it can be loaded next to the graph
+	 *
+	 * @param file		file to write
+	 * @throws IOException
+	 */
+	public void save(String file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(names.length);
+			out.writeInt(hubs.length);
+			for(String name : names) out.writeUTF(name);
+			for(int o : offsets) out.writeInt(o);
+			for(int h : hubs) out.writeInt(h);
+			out.write(dists);
+		}
+	}
+
+	/**
+	 * Reads an index written by save()
+	 *
+	 * @param file		file to read
+	 * @return			the index
+	 * @throws IOException		if the file can't be read or isn't an index
+	 */
+	public static PrunedLandmarkLabeling load(String file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if(in.readInt() != MAGIC) throw new IOException(file + " is not a saved index");
+			int n = in.readInt(), entries = in.readInt();
+			String[] names = new String[n];
+			for(int v = 0; v < n; v++) names[v] = in.readUTF();
+			int[] offsets = new int[n + 1];
+			for(int v = 0; v <= n; v++) offsets[v] = in.readInt();
+			int[] hubs = new int[entries];
+			for(int i = 0; i < entries; i++) hubs[i] = in.readInt();
+			byte[] dists = new byte[entries];
+			in.readFully(dists);
+			return new PrunedLandmarkLabeling(names, offsets, hubs, dists);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads an index written by save() for the given graph, rejecting one built from other data
+	 *
+	 * @param file		file to read
+	 * @param g			graph the index will be used with
+	 * @return			the index
+	 * @throws IOException		if the file can't be read, isn't an index, or doesn't have exactly the graph's actors
+	 */
+	public static PrunedLandmarkLabeling load(String file, Graph<String, ?> g) throws IOException {
+		PrunedLandmarkLabeling pll = load(file);
+		if(pll.numVertices() != g.numVertices()) {
+			throw new IOException(file + " indexes " + pll.numVertices() + " actors but the graph has " + g.numVertices());
+		}
+		for(String name : pll.names) {		// names are unique, so same count and all present means the same actors
+			if(!g.hasVertex(name)) throw new IOException(file + " indexes an actor not in the graph: " + name);
+		}
+		return pll;
+	}
+}
@@ -0,0 +1,121 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Tester for PrunedLandmarkLabeling: builds the index, checks its distances against
+ * BaconGraphLib.bfs from a sample of sources (to every actor), checks that a saved and
+ * reloaded index answers the same (and is refused for a graph with other actors), and
+ * reports build time, index size and query latency. Uses the same -Dbacon.* data file properties as BaconDriver. First checks
+ * every pair on a long chain, whose distances are too long for a signed byte.
+ *
+ * Usage: PrunedLandmarkLabelingTester [sources to check] [seed]
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class PrunedLandmarkLabelingTester {
+
+	public static void main(String[] args) throws Exception {
+		int sources = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+		chain(200);
+
+		Graph<String, Set<String>> graph = BaconDriver.loadGraph();
+		IndexedGraph<String> g = new IndexedGraph<String>(graph, VertexOrder.BFS);
+		int n = g.numVertices();
+
+		long start = System.nanoTime();
+		PrunedLandmarkLabeling pll = new PrunedLandmarkLabeling(g);
+		double buildMs = (System.nanoTime() - start) / 1e6;
+		System.out.println(String.format("build: %.1fms, %d entries (%.1f per actor), %d bytes",
+				buildMs, pll.numEntries(), (double)pll.numEntries() / n, pll.bytes()));
+
+		// exactness against the game's own bfs
+		List<String> actors = new ArrayList<String>();
+		for(String v : graph.vertices()) actors.add(v);
+		Collections.sort(actors);
+		Random random = new Random(seed);
+		long checked = 0, wrong = 0;
+		for(int s = 0; s < Math.min(sources, n); s++) {
+			String source = actors.get(random.nextInt(n));
+			Graph<String, Set<String>> tree = BaconGraphLib.bfs(graph, source);
+			for(String v : actors) {
+				int expected = tree.hasVertex(v) ? BaconGraphLib.getPath(tree, v).size() - 1 : PrunedLandmarkLabeling.INFINITE;
+				if(pll.distance(source, v) != expected) {
+					if(wrong++ < 10) System.out.println("Mismatch " + source + " -> " + v + ": " + pll.distance(source, v) + " vs " + expected);
+				}
+				checked++;
+			}
+		}
+		System.out.println("checked " + checked + " pairs against bfs, " + wrong + " wrong");
+
+		// save / load round trip
+		File file = File.createTempFile("bacon", ".pll");
+		file.deleteOnExit();
+		start = System.nanoTime();
+		pll.save(file.getPath());
+		double saveMs = (System.nanoTime() - start) / 1e6;
+		start = System.nanoTime();
+		PrunedLandmarkLabeling loaded = PrunedLandmarkLabeling.load(file.getPath(), graph);
+		double loadMs = (System.nanoTime() - start) / 1e6;
+		System.out.println("index refused for a graph missing an actor: " + refused(file.getPath(), graph, false)
+				+ ", with an actor renamed: " + refused(file.getPath(), graph, true));
+		int differ = 0;
+		int[] us = new int[200000], vs = new int[200000];
+		for(int i = 0; i < us.length; i++) {
+			us[i] = random.nextInt(n);
+			vs[i] = random.nextInt(n);
+			if(loaded.distance(g.vertex(us[i]), g.vertex(vs[i])) != pll.distance(us[i], vs[i])) differ++;
+		}
+		System.out.println(String.format("save %.1fms, load %.1fms, file %d bytes, %d of %d random pairs differ after reload",
+				saveMs, loadMs, file.length(), differ, us.length));
+
+		// query latency, best of a few rounds
+		double best = Double.MAX_VALUE;
+		long sink = 0;
+		for(int round = 0; round < 5; round++) {
+			start = System.nanoTime();
+			for(int i = 0; i < us.length; i++) sink += pll.distance(us[i], vs[i]);
+			best = Math.min(best, (System.nanoTime() - start) / 1e3 / us.length);
+		}
+		System.out.println(String.format("query: %.3fus per pair (checksum %d)", best, sink));
+	}
+
+	/**
+	 * Whether load rejects the index for the graph's actors (no edges) less one, who is
+	 * replaced by a stranger if rename is set
+	 */
+	private static boolean refused(String file, Graph<String, Set<String>> graph, boolean rename) {
+		Graph<String, Set<String>> other = new AdjacencyMapGraph<String, Set<String>>();
+		for(String v : graph.vertices()) if(other.numVertices() < graph.numVertices() - 1) other.insertVertex(v);
+		if(rename) other.insertVertex("Nobody In Particular");
+		try {
+			PrunedLandmarkLabeling.load(file, other);
+			return false;
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Checks every pair on a path v0 - v1 - ... - v(length-1), where distance(vi, vj) must be |i-j|
+	 */
+	private static void chain(int length) {
+		Graph<String, Set<String>> chain = new AdjacencyMapGraph<String, Set<String>>();
+		for(int i = 0; i < length; i++) chain.insertVertex("v" + i);
+		for(int i = 1; i < length; i++) chain.insertUndirected("v" + (i-1), "v" + i, new HashSet<String>());
+		PrunedLandmarkLabeling pll = new PrunedLandmarkLabeling(new IndexedGraph<String>(chain));
+		int wrong = 0;
+		for(int i = 0; i < length; i++) {
+			for(int j = 0; j < length; j++) {
+				if(pll.distance("v" + i, "v" + j) != Math.abs(i - j)) {
+					if(wrong++ < 10) System.out.println("Mismatch v" + i + " -> v" + j + ": " + pll.distance("v" + i, "v" + j));
+				}
+			}
+		}
+		System.out.println("chain of " + length + ": checked " + length * length + " pairs, " + wrong + " wrong");
+	}
+
+}
@@ -0,0 +1,84 @@
+import java.util.*;
+
+/**
+ * Keeps the k best items offered to it, in O(log k) per item, using a bounded heap
+ * with the worst kept item on top. For rankings where only the first few entries are
+ * shown (top centers, highest degrees) this replaces copying and sorting everything.
+ * offer() is thread-safe, so workers of a parallel computation can feed it scores as
+ * they produce them.
+ *
+ * @param <V>	the type of items
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class TopK<V> {
+	private final int k;
+	private final Comparator<V> order;
+	private final PriorityQueue<V> heap;		// worst kept item at the head
+
+	/**
+	 * Constructor for an empty selection
+	 *
+	 * @param k			how many items to keep
+	 * @param order		ranking, best first; should have no ties (break them on something unique) so results are deterministic
+	 */
+	public TopK(int k, Comparator<V> order) {
+		this.k = k;
+		this.order = order;
+		this.heap = new PriorityQueue<V>(Math.max(1, k), order.reversed());
+	}
+
+	/**
+	 * Offers an item
+	 *
+	 * @param v		item to consider
+	 * @return		whether it is (for now) among the k best
+	 */
+	public synchronized boolean offer(V v) {
+		if(k <= 0) return false;
+		if(heap.size() < k) {
+			heap.add(v);
+			return true;
+		}
+		if(order.compare(v, heap.peek()) >= 0) return false;
+		heap.poll();
+		heap.add(v);
+		return true;
+	}
+
+	/**
+	 * The kept items, best first
+	 */
+	public synchronized List<V> toList() {
+		List<V> list = new ArrayList<V>(heap);
+		list.sort(order);
+		return list;
+	}
+
+	/**
+	 * Selects the k best items
+	 *
+	 * @param items		items to choose from
+	 * @param k			how many to keep
+	 * @param order		ranking, best first
+	 * @return			the k best, best first
+	 */
+	public static <V> List<V> select(Iterable<V> items, int k, Comparator<V> order) {
+		TopK<V> top = new TopK<V>(k, order);
+		for(V v : items) top.offer(v);
+		return top.toList();
+	}
+
+	/**
+	 * Ranking by an exact double score, with ties broken by the items' natural order
+	 *
+	 * @param scores		score of each item
+	 * @param ascending		whether lower scores rank first
+	 * @return				comparator, best first
+	 */
+	public static <V extends Comparable<V>> Comparator<V> byScore(Map<V, Double> scores, boolean ascending) {
+		Comparator<V> byScore = (v1, v2) -> Double.compare(scores.get(v1), scores.get(v2));
+		return (ascending ? byScore : byScore.reversed()).thenComparing(Comparator.naturalOrder());
+	}
+}
@@ -0,0 +1,91 @@
+import java.util.*;
+
+/**
+ * Tester for TopK: on the configured data, checks top-k and bottom-k by average
+ * separation (over Kevin Bacon's component, as centers ranks) and by degree against
+ * a full sort with the same comparator, shows how many of the old truncating
+ * comparator's picks are wrong, and times selection against the full sort for
+ * k = 10, 100 and 1000 (fewer if there aren't that many actors). Uses the same
+ * -Dbacon.* data file properties as BaconDriver.
+ *
+ * Usage: TopKTester [repetitions]
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class TopKTester {
+
+	public static void main(String[] args) throws Exception {
+		int reps = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		Graph<String, Set<String>> graph = BaconDriver.loadGraph();
+		// rank the same actors centers does: those connected to Kevin Bacon
+		List<String> all = new ArrayList<String>();
+		for(String v : BaconGraphLib.bfs(graph, "Kevin Bacon").vertices()) all.add(v);
+		IndexedGraph<String> indexed = new IndexedGraph<String>(graph, VertexOrder.BFS);
+		Map<String, Double> separation = MultiSourceBfs.averageSeparations(indexed, all, Runtime.getRuntime().availableProcessors());
+		List<String> everyone = new ArrayList<String>();
+		for(String v : graph.vertices()) everyone.add(v);
+		System.out.println(all.size() + " actors connected to Kevin Bacon, " + graph.numVertices() + " in all");
+
+		// the comparator centers used to sort with: differences under 0.01 counted as ties
+		Comparator<String> truncating = (v1, v2) -> (int)((separation.get(v1) - separation.get(v2))*100);
+
+		int wrong = 0;
+		for(int size : new int[] {10, 100, 1000}) {
+			int k = Math.min(size, all.size());		// the small test data has fewer actors than k
+			for(boolean ascending : new boolean[] {true, false}) {
+				Comparator<String> order = TopK.byScore(separation, ascending);
+				List<String> expected = fullSort(all, k, order);
+				if(!TopK.select(all, k, order).equals(expected)) wrong++;
+
+				List<String> old = new ArrayList<String>(all);
+				old.sort(truncating);
+				if(!ascending) Collections.reverse(old);
+				Set<String> differ = new HashSet<String>(old.subList(0, k));
+				differ.removeAll(expected);
+
+				Comparator<String> byDegree = Comparator.comparingInt((String v) -> graph.inDegree(v));
+				Comparator<String> degreeOrder = (ascending ? byDegree : byDegree.reversed()).thenComparing(Comparator.naturalOrder());
+				if(!BaconGraphLib.topByInDegree(graph, ascending ? -k : k).equals(fullSort(everyone, k, degreeOrder))) wrong++;
+
+				System.out.println(String.format("k=%d %s: %d of the truncating comparator's picks are not in the exact %s %d",
+						k, ascending ? "top" : "bottom", differ.size(), ascending ? "top" : "bottom", k));
+			}
+		}
+		System.out.println(wrong + " selections differ from the full sort");
+
+		// timing, best of a few rounds of reps each
+		System.out.println("k\tseparation: full sort (us)\ttop-k (us)\tdegree: full sort (us)\ttop-k (us)\tverticesByInDegree, no tie-break (us)");
+		Comparator<String> order = TopK.byScore(separation, true);
+		Comparator<String> degreeOrder = Comparator.comparingInt((String v) -> graph.inDegree(v)).reversed().thenComparing(Comparator.naturalOrder());
+		for(int size : new int[] {10, 100, 1000}) {
+			int k = Math.min(size, all.size());
+			double sortUs = time(reps, () -> fullSort(all, k, order));
+			double topUs = time(reps, () -> TopK.select(all, k, order));
+			double degreeSortUs = time(reps, () -> fullSort(everyone, k, degreeOrder));
+			double degreeTopUs = time(reps, () -> BaconGraphLib.topByInDegree(graph, k));
+			double oldUs = time(reps, () -> BaconGraphLib.verticesByInDegree(graph).subList(0, k));
+			System.out.println(String.format("%d\t%.0f\t%.0f\t%.0f\t%.0f\t%.0f", k, sortUs, topUs, degreeSortUs, degreeTopUs, oldUs));
+		}
+	}
+
+	private static List<String> fullSort(List<String> all, int k, Comparator<String> order) {
+		List<String> sorted = new ArrayList<String>(all);
+		sorted.sort(order);
+		return new ArrayList<String>(sorted.subList(0, k));
+	}
+
+	/**
+	 * Best average microseconds per call over 5 rounds of reps calls
+	 */
+	private static double time(int reps, Runnable task) {
+		double best = Double.MAX_VALUE;
+		for(int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			for(int i = 0; i < reps; i++) task.run();
+			best = Math.min(best, (System.nanoTime() - start) / 1e3 / reps);
+		}
+		return best;
+	}
+
+}
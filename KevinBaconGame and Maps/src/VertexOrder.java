@@ -0,0 +1,107 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Ways to number the vertices of an IndexedGraph. Traversals touch a vertex's
+ * neighbors right after the vertex itself, so orders that give neighbors nearby
+ * indices keep more of the search in cache than the HashMap order the graph is
+ * built in.
+ *
+ * Each order returns order[i] = current index of the vertex that should become index i.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public enum VertexOrder {
+	/** Leave the vertices in the order the graph iterated them */
+	NATURAL {
+		int[] order(IndexedGraph<?> g) {
+			int[] order = new int[g.numVertices()];
+			for(int i = 0; i < order.length; i++) order[i] = i;
+			return order;
+		}
+	},
+
+	/** Highest degree first, so the hubs every search passes through share cache lines */
+	DEGREE {
+		int[] order(IndexedGraph<?> g) {
+			Integer[] boxed = new Integer[g.numVertices()];
+			for(int i = 0; i < boxed.length; i++) boxed[i] = i;
+			Arrays.sort(boxed, Comparator.comparingInt((Integer v) -> -g.outDegree(v)).thenComparingInt(v -> v));
+			int[] order = new int[boxed.length];
+			for(int i = 0; i < order.length; i++) order[i] = boxed[i];
+			return order;
+		}
+	},
+
+	/** Breadth-first order, one component at a time starting from its highest degree vertex */
+	BFS {
+		int[] order(IndexedGraph<?> g) {
+			return breadthFirst(g, DEGREE.order(g), false);
+		}
+	},
+
+	/** Reverse Cuthill-McKee: breadth-first from a low degree vertex, neighbors by increasing degree, then reversed */
+	RCM {
+		int[] order(IndexedGraph<?> g) {
+			int[] starts = DEGREE.order(g);
+			for(int i = 0, j = starts.length - 1; i < j; i++, j--) {
+				int t = starts[i]; starts[i] = starts[j]; starts[j] = t;
+			}
+			int[] order = breadthFirst(g, starts, true);
+			for(int i = 0, j = order.length - 1; i < j; i++, j--) {
+				int t = order[i]; order[i] = order[j]; order[j] = t;
+			}
+			return order;
+		}
+	};
+
+	/**
+	 * Computes the ordering
+	 *
+	 * @param g		graph in its current numbering
+	 * @return		order[i] = current index of the vertex that should become index i
+	 */
+	abstract int[] order(IndexedGraph<?> g);
+
+	/**
+	 * Breadth-first numbering of every component, starting each new component from
+	 * the first unvisited vertex in starts
+	 *
+	 * @param g				graph to number
+	 * @param starts		candidate start vertices, in preference order
+	 * @param byDegree		whether to enqueue each vertex's neighbors in increasing degree order
+	 */
+	private static int[] breadthFirst(IndexedGraph<?> g, int[] starts, boolean byDegree) {
+		int n = g.numVertices();
+		int[] offsets = g.offsets(), targets = g.targets();
+		boolean[] visited = new boolean[n];
+		int[] order = new int[n];
+		int head = 0, tail = 0;
+		Integer[] neighbors = new Integer[0];
+
+		for(int s : starts) {
+			if(visited[s]) continue;
+			visited[s] = true;
+			order[tail++] = s;
+			while(head < tail) {
+				int u = order[head++];
+				int from = tail;
+				for(int e = offsets[u]; e < offsets[u+1]; e++) {
+					int v = targets[e];
+					if(!visited[v]) {
+						visited[v] = true;
+						order[tail++] = v;
+					}
+				}
+				if(byDegree && tail - from > 1) {
+					if(neighbors.length < tail - from) neighbors = new Integer[tail - from];
+					for(int i = from; i < tail; i++) neighbors[i - from] = order[i];
+					Arrays.sort(neighbors, 0, tail - from, Comparator.comparingInt((Integer v) -> g.outDegree(v)).thenComparingInt(v -> v));
+					for(int i = from; i < tail; i++) order[i] = neighbors[i - from];
+				}
+			}
+		}
+		return order;
+	}
+}
@@ -0,0 +1,55 @@
+import java.util.*;
+
+/**
+ * Tester for VertexOrder: builds an IndexedGraph under each ordering, checks that
+ * every ordering gives the same per-actor results, and times single-source bfs
+ * and the all-sources multi-source computation under each. Uses the same
+ * -Dbacon.* data file properties as BaconDriver.
+ *
+ * For cache-miss counts run it under perf, e.g.
+ *   perf stat -e cache-misses,LLC-load-misses java VertexOrderTester RCM
+ * with a single ordering name as the argument.
+ *
+ * @author Sudharsan Balasubramani and Dhruv Uppal
+ *
+ */
+public class VertexOrderTester {
+
+	public static void main(String[] args) throws Exception {
+		Graph<String, Set<String>> graph = BaconDriver.loadGraph();
+		List<String> all = new ArrayList<String>();
+		for(String v : graph.vertices()) all.add(v);
+		int threads = Runtime.getRuntime().availableProcessors();
+		int rounds = 3;
+
+		VertexOrder[] orders = args.length > 0 ? new VertexOrder[] {VertexOrder.valueOf(args[0])} : VertexOrder.values();
+		Map<String, Double> reference = null;
+		System.out.println("order\tbuild(ms)\tbfs(us/source)\tall-sources(ms)\tsame");
+		for(VertexOrder order : orders) {
+			long start = System.nanoTime();
+			IndexedGraph<String> indexed = new IndexedGraph<String>(graph, order);
+			double buildMs = (System.nanoTime() - start) / 1e6;
+
+			// single-source: every vertex once per round, best round reported
+			double bfsUs = Double.MAX_VALUE;
+			for(int r = 0; r < rounds; r++) {
+				start = System.nanoTime();
+				for(String v : all) indexed.distances(indexed.indexOf(v));
+				bfsUs = Math.min(bfsUs, (System.nanoTime() - start) / 1e3 / all.size());
+			}
+
+			double allMs = Double.MAX_VALUE;
+			Map<String, Double> separation = null;
+			for(int r = 0; r < rounds; r++) {
+				start = System.nanoTime();
+				separation = MultiSourceBfs.averageSeparations(indexed, all, threads);
+				allMs = Math.min(allMs, (System.nanoTime() - start) / 1e6);
+			}
+			if(reference == null) reference = separation;
+
+			System.out.println(order + "\t" + String.format("%.1f", buildMs) + "\t" + String.format("%.1f", bfsUs)
+					+ "\t" + String.format("%.1f", allMs) + "\t" + separation.equals(reference));
+		}
+	}
+
+}